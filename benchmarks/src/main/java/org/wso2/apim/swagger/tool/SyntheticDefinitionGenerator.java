@@ -0,0 +1,195 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+/**
+ * Generates synthetic Swagger 2 and OpenAPI 3 definitions of different shapes, so the benchmarks do not depend on a
+ * corpus of real definitions.
+ */
+public class SyntheticDefinitionGenerator {
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+    private static final ObjectMapper YAML_MAPPER = new ObjectMapper(new YAMLFactory());
+    private static final int SMALL_PATH_COUNT = 5;
+    private static final int LARGE_PATH_COUNT = 2000;
+    private static final int LARGE_SCHEMA_COUNT = 500;
+    private static final int REF_CHAIN_DEPTH = 64;
+
+    /**
+     * Shape of the generated definition.
+     */
+    public enum Shape {
+        // A few paths and schemas
+        SMALL,
+        // Thousands of paths referring to hundreds of schemas
+        LARGE,
+        // Long chains of schemas referring to the next schema through properties and allOf
+        DEEP_REF,
+        // Schemas referring to themselves and to each other
+        RECURSIVE
+    }
+
+    /**
+     * Serialization format of the generated definition.
+     */
+    public enum Format {
+        JSON,
+        YAML
+    }
+
+    /**
+     * @param shape  shape of the definition
+     * @param format serialization format of the definition
+     * @return OpenAPI 3 definition
+     */
+    public static String openAPI(Shape shape, Format format) {
+        ObjectNode root = JsonNodeFactory.instance.objectNode();
+        root.put("openapi", "3.0.1");
+        root.putObject("info").put("title", "Synthetic " + shape).put("version", "1.0.0");
+        ObjectNode schemas = root.putObject("components").putObject("schemas");
+        String rootSchema = addSchemas(schemas, shape, "#/components/schemas/");
+        ObjectNode paths = root.putObject("paths");
+        for (int i = 0; i < getPathCount(shape); i++) {
+            ObjectNode pathItem = paths.putObject("/resource" + i + "/{id}");
+            pathItem.putArray("parameters").addObject().put("name", "id").put("in", "path").put("required", true)
+                    .putObject("schema").put("type", "string");
+            ObjectNode get = pathItem.putObject("get");
+            get.put("operationId", "getResource" + i);
+            get.putObject("responses").putObject("200").put("description", "OK").putObject("content")
+                    .putObject("application/json").putObject("schema")
+                    .put("$ref", "#/components/schemas/" + getSchemaName(shape, rootSchema, i));
+            ObjectNode post = pathItem.putObject("post");
+            post.put("operationId", "createResource" + i);
+            post.putObject("requestBody").putObject("content").putObject("application/json").putObject("schema")
+                    .put("$ref", "#/components/schemas/" + getSchemaName(shape, rootSchema, i));
+            post.putObject("responses").putObject("201").put("description", "Created");
+        }
+        return write(root, format);
+    }
+
+    /**
+     * @param shape  shape of the definition
+     * @param format serialization format of the definition
+     * @return Swagger 2 definition
+     */
+    public static String swagger(Shape shape, Format format) {
+        ObjectNode root = JsonNodeFactory.instance.objectNode();
+        root.put("swagger", "2.0");
+        root.putObject("info").put("title", "Synthetic " + shape).put("version", "1.0.0");
+        ObjectNode definitions = JsonNodeFactory.instance.objectNode();
+        String rootSchema = addSchemas(definitions, shape, "#/definitions/");
+        ObjectNode paths = root.putObject("paths");
+        for (int i = 0; i < getPathCount(shape); i++) {
+            ObjectNode pathItem = paths.putObject("/resource" + i + "/{id}");
+            pathItem.putArray("parameters").addObject().put("name", "id").put("in", "path").put("required", true)
+                    .put("type", "string");
+            ObjectNode get = pathItem.putObject("get");
+            get.put("operationId", "getResource" + i);
+            get.putArray("produces").add("application/json");
+            get.putObject("responses").putObject("200").put("description", "OK").putObject("schema")
+                    .put("$ref", "#/definitions/" + getSchemaName(shape, rootSchema, i));
+            ObjectNode post = pathItem.putObject("post");
+            post.put("operationId", "createResource" + i);
+            post.putArray("parameters").addObject().put("name", "body").put("in", "body").put("required", true)
+                    .putObject("schema").put("$ref", "#/definitions/" + getSchemaName(shape, rootSchema, i));
+            post.putObject("responses").putObject("201").put("description", "Created");
+        }
+        root.set("definitions", definitions);
+        return write(root, format);
+    }
+
+    private static int getPathCount(Shape shape) {
+        return shape == Shape.LARGE ? LARGE_PATH_COUNT : SMALL_PATH_COUNT;
+    }
+
+    private static String getSchemaName(Shape shape, String rootSchema, int pathIndex) {
+        return shape == Shape.LARGE ? "Model" + (pathIndex % LARGE_SCHEMA_COUNT) : rootSchema;
+    }
+
+    /**
+     * Adds the schemas of the given shape and returns the name of the schema referred by the operations.
+     */
+    private static String addSchemas(ObjectNode schemas, Shape shape, String refPrefix) {
+        switch (shape) {
+            case LARGE:
+                for (int i = 0; i < LARGE_SCHEMA_COUNT; i++) {
+                    ObjectNode properties = addObjectSchema(schemas, "Model" + i);
+                    properties.putObject("id").put("type", "integer").put("format", "int64");
+                    properties.putObject("name").put("type", "string");
+                    properties.putObject("tags").put("type", "array").putObject("items").put("type", "string");
+                    if (i > 0) {
+                        properties.putObject("related").put("$ref", refPrefix + "Model" + (i - 1));
+                    }
+                }
+                return "Model0";
+            case DEEP_REF:
+                for (int i = 0; i < REF_CHAIN_DEPTH; i++) {
+                    ObjectNode schema = schemas.putObject("Level" + i);
+                    ArrayNode allOf = schema.putArray("allOf");
+                    ObjectNode properties = allOf.addObject().put("type", "object").putObject("properties");
+                    properties.putObject("value" + i).put("type", "string");
+                    if (i + 1 < REF_CHAIN_DEPTH) {
+                        allOf.addObject().put("$ref", refPrefix + "Level" + (i + 1));
+                        properties.putObject("next").put("$ref", refPrefix + "Level" + (i + 1));
+                    }
+                }
+                return "Level0";
+            case RECURSIVE:
+                ObjectNode nodeProperties = addObjectSchema(schemas, "TreeNode");
+                nodeProperties.putObject("value").put("type", "string");
+                nodeProperties.putObject("parent").put("$ref", refPrefix + "TreeNode");
+                nodeProperties.putObject("children").put("type", "array").putObject("items")
+                        .put("$ref", refPrefix + "TreeNode");
+                nodeProperties.putObject("owner").put("$ref", refPrefix + "Person");
+                ObjectNode personProperties = addObjectSchema(schemas, "Person");
+                personProperties.putObject("name").put("type", "string");
+                personProperties.putObject("manager").put("$ref", refPrefix + "Person");
+                personProperties.putObject("nodes").put("type", "array").putObject("items")
+                        .put("$ref", refPrefix + "TreeNode");
+                return "TreeNode";
+            default:
+                ObjectNode petProperties = addObjectSchema(schemas, "Pet");
+                petProperties.putObject("id").put("type", "integer").put("format", "int64");
+                petProperties.putObject("name").put("type", "string");
+                petProperties.putObject("category").put("$ref", refPrefix + "Category");
+                addObjectSchema(schemas, "Category").putObject("name").put("type", "string");
+                return "Pet";
+        }
+    }
+
+    private static ObjectNode addObjectSchema(ObjectNode schemas, String name) {
+        return schemas.putObject(name).put("type", "object").putObject("properties");
+    }
+
+    private static String write(ObjectNode root, Format format) {
+        try {
+            return (format == Format.JSON ? JSON_MAPPER : YAML_MAPPER).writeValueAsString(root);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize the synthetic definition", e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the complete validation of a single definition at each validation level, without the result cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationLevelBenchmark {
+
+    @Param({"SMALL", "LARGE", "DEEP_REF", "RECURSIVE"})
+    public SyntheticDefinitionGenerator.Shape shape;
+
+    @Param({"JSON", "YAML"})
+    public SyntheticDefinitionGenerator.Format format;
+
+    @Param({"0", "1", "2"})
+    public int validationLevel;
+
+    private String openAPIDefinition;
+    private String swaggerDefinition;
+
+    @Setup
+    public void setUp() {
+        SwaggerTool.resultCache = null;
+        openAPIDefinition = SyntheticDefinitionGenerator.openAPI(shape, format);
+        swaggerDefinition = SyntheticDefinitionGenerator.swagger(shape, format);
+    }
+
+    @Benchmark
+    public ValidationResult validateOpenAPIContent() {
+        ValidationResult result = new ValidationResult();
+        SwaggerTool.validateSwaggerContent(openAPIDefinition, validationLevel, result);
+        return result;
+    }
+
+    @Benchmark
+    public ValidationResult validateSwaggerContent() {
+        ValidationResult result = new ValidationResult();
+        SwaggerTool.validateSwaggerContent(swaggerDefinition, validationLevel, result);
+        return result;
+    }
+}
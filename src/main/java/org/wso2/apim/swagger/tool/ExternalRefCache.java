@@ -0,0 +1,251 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide cache of the files and URLs referred by external $refs. The swagger parsers keep the loaded references
+ * only while resolving a single definition, hence a model file shared by many definitions is read and parsed once per
+ * definition. This cache keeps the content and the parsed trees of the referred files by their normalized URI, so they
+ * are loaded once per run. The least recently used files are evicted once the cached content exceeds the configured
+ * size.
+ * <p>
+ * When a mirror directory is configured, a remote reference such as https://example.com/models/common.yaml is read
+ * from &lt;mirror&gt;/example.com/models/common.yaml if that file exists, so the definitions can be validated without
+ * network access.
+ */
+class ExternalRefCache {
+    private static final Logger log = LoggerFactory.getLogger(ExternalRefCache.class);
+
+    private final long maxBytes;
+    private final Path mirrorDirectory;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private long cachedBytes;
+
+    /**
+     * @param maxBytes        maximum size of the cached content in bytes
+     * @param mirrorDirectory directory holding local copies of the remote references, or null
+     */
+    ExternalRefCache(long maxBytes, Path mirrorDirectory) {
+        this.maxBytes = maxBytes;
+        this.mirrorDirectory = mirrorDirectory;
+    }
+
+    /**
+     * @param file   referred file or URL as written in the $ref
+     * @param loader loads the content when it is neither cached nor mirrored
+     * @return content of the referred file
+     */
+    String getContents(String file, Supplier<String> loader) {
+        String key = getKey(file);
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null) {
+            hitCount.increment();
+            return entry.contents;
+        }
+        missCount.increment();
+        String contents = readMirror(file);
+        if (contents == null) {
+            contents = loader.get();
+        }
+        if (contents != null) {
+            put(key, new Entry(contents));
+        }
+        return contents;
+    }
+
+    /**
+     * @param file     referred file or URL as written in the $ref
+     * @param contents content of the referred file
+     * @param parser   parses the content with the OpenAPI 3 parser
+     * @return tree of the content parsed by the OpenAPI 3 parser
+     */
+    JsonNode getOpenAPITree(String file, String contents, Function<String, JsonNode> parser) {
+        Entry entry = getEntry(file, contents);
+        if (entry == null) {
+            return parser.apply(contents);
+        }
+        if (entry.openAPITree == null) {
+            entry.openAPITree = parser.apply(contents);
+        }
+        return entry.openAPITree;
+    }
+
+    /**
+     * @param file     referred file or URL as written in the $ref
+     * @param contents content of the referred file
+     * @param parser   parses the content with the Swagger 2 parser
+     * @return tree of the content parsed by the Swagger 2 parser
+     */
+    JsonNode getSwaggerTree(String file, String contents, Function<String, JsonNode> parser) {
+        Entry entry = getEntry(file, contents);
+        if (entry == null) {
+            return parser.apply(contents);
+        }
+        if (entry.swaggerTree == null) {
+            entry.swaggerTree = parser.apply(contents);
+        }
+        return entry.swaggerTree;
+    }
+
+    long getHitCount() {
+        return hitCount.sum();
+    }
+
+    long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Discards all the cached references, such as when the referred files may have changed.
+     */
+    void clear() {
+        synchronized (entries) {
+            entries.clear();
+            cachedBytes = 0;
+        }
+    }
+
+    private Entry getEntry(String file, String contents) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(getKey(file));
+        }
+        // The trees are only shared for the cached content, not for content loaded while the entry was evicted
+        return entry != null && entry.contents == contents ? entry : null;
+    }
+
+    private void put(String key, Entry entry) {
+        synchronized (entries) {
+            Entry previousEntry = entries.put(key, entry);
+            if (previousEntry != null) {
+                cachedBytes -= previousEntry.size;
+            }
+            cachedBytes += entry.size;
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (cachedBytes > maxBytes && iterator.hasNext()) {
+                Entry eldestEntry = iterator.next();
+                if (eldestEntry == entry) {
+                    break;
+                }
+                cachedBytes -= eldestEntry.size;
+                iterator.remove();
+            }
+        }
+    }
+
+    private String readMirror(String file) {
+        if (mirrorDirectory == null || !file.startsWith("http")) {
+            return null;
+        }
+        Path mirroredFile;
+        try {
+            URI uri = new URI(file);
+            if (uri.getHost() == null || uri.getRawPath() == null) {
+                return null;
+            }
+            String hostDirectory = uri.getHost().toLowerCase(Locale.ROOT)
+                    + (uri.getPort() != -1 ? "_" + uri.getPort() : "");
+            mirroredFile = mirrorDirectory.resolve(hostDirectory).resolve(uri.getPath().replaceFirst("^/+", ""))
+                    .normalize();
+        } catch (URISyntaxException | InvalidPathException e) {
+            return null;
+        }
+        if (!mirroredFile.startsWith(mirrorDirectory) || !Files.isRegularFile(mirroredFile)) {
+            log.debug("Reference " + file + " is not mirrored at " + mirroredFile);
+            return null;
+        }
+        try {
+            return new String(Files.readAllBytes(mirroredFile), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to load URL ref: " + file + " from the mirror " + mirroredFile, e);
+        }
+    }
+
+    /**
+     * @param file referred file or URL as written in the $ref
+     * @return normalized URI of the referred file, so the same file referred differently is cached once
+     */
+    static String getKey(String file) {
+        if (file.startsWith("http")) {
+            try {
+                URI uri = new URI(file).normalize();
+                if (uri.getScheme() == null || uri.getRawAuthority() == null) {
+                    return file;
+                }
+                String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+                String authority = uri.getRawAuthority().toLowerCase(Locale.ROOT);
+                if (("http".equals(scheme) && authority.endsWith(":80"))
+                        || ("https".equals(scheme) && authority.endsWith(":443"))) {
+                    authority = authority.substring(0, authority.lastIndexOf(':'));
+                }
+                return scheme + "://" + authority + (uri.getRawPath() != null ? uri.getRawPath() : "")
+                        + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
+            } catch (URISyntaxException e) {
+                return file;
+            }
+        }
+        try {
+            // The parsers resolve the relative references against the working directory
+            Path path = Paths.get(".").resolve(file).toAbsolutePath().normalize();
+            // Missing files are looked up by the parsers in other locations, hence they are kept as written
+            return Files.exists(path) ? path.toUri().toString() : file;
+        } catch (InvalidPathException e) {
+            return file;
+        }
+    }
+
+    private static class Entry {
+        private final String contents;
+        private final long size;
+        private volatile JsonNode openAPITree;
+        private volatile JsonNode swaggerTree;
+
+        Entry(String contents) {
+            this.contents = contents;
+            this.size = contents.length() * 2L;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+import java.io.InterruptedIOException;
+
+/**
+ * Global budget of the definition bytes held in memory at once. A file reserves its size from the budget before it is
+ * read and releases it once the file is validated, so only a few very large definitions are parsed at the same time
+ * while small definitions keep flowing. A file larger than the whole budget reserves the whole budget and is validated
+ * alone.
+ */
+class InFlightByteBudget {
+    private final long capacity;
+    private long available;
+
+    /**
+     * @param capacity maximum number of definition bytes held in memory at once
+     */
+    InFlightByteBudget(long capacity) {
+        this.capacity = capacity;
+        this.available = capacity;
+    }
+
+    /**
+     * Waits until the given number of bytes is available in the budget and reserves it.
+     *
+     * @param bytes number of bytes to reserve
+     * @return number of bytes reserved, which has to be released once the bytes are no longer used
+     * @throws InterruptedIOException if the thread is interrupted while waiting
+     */
+    synchronized long acquire(long bytes) throws InterruptedIOException {
+        long reservedBytes = Math.min(bytes, capacity);
+        while (available < reservedBytes) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the in-flight byte budget");
+            }
+        }
+        available -= reservedBytes;
+        return reservedBytes;
+    }
+
+    /**
+     * @param reservedBytes number of bytes returned by {@link #acquire(long)}
+     */
+    synchronized void release(long reservedBytes) {
+        available += reservedBytes;
+        notifyAll();
+    }
+
+    long getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with logarithmic buckets of microseconds. Each power of two is split into 8 buckets, so the
+ * percentiles are accurate to 12.5% while the memory used does not depend on the number of recorded values. Values
+ * are recorded concurrently without locking.
+ */
+class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(64 * SUB_BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * @param nanos latency to record in nanoseconds
+     */
+    void record(long nanos) {
+        bucketCounts.incrementAndGet(getBucketIndex(Math.max(nanos / 1000, 1)));
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+
+    long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * @param percentile percentile between 0 and 100
+     * @return upper bound of the bucket holding the given percentile in nanoseconds, or 0 if nothing is recorded
+     */
+    long getPercentileNanos(double percentile) {
+        long totalCount = 0;
+        for (int i = 0; i < bucketCounts.length(); i++) {
+            totalCount += bucketCounts.get(i);
+        }
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max((long) Math.ceil(totalCount * percentile / 100), 1);
+        long cumulativeCount = 0;
+        for (int i = 0; i < bucketCounts.length(); i++) {
+            cumulativeCount += bucketCounts.get(i);
+            if (cumulativeCount >= rank) {
+                return Math.min((long) (getBucketLowerBound(i + 1) * 1000), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    private static int getBucketIndex(long micros) {
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        long subBucket = exponent >= SUB_BUCKET_BITS ? micros >>> (exponent - SUB_BUCKET_BITS)
+                : micros << (SUB_BUCKET_BITS - exponent);
+        return exponent * SUB_BUCKET_COUNT + (int) (subBucket & (SUB_BUCKET_COUNT - 1));
+    }
+
+    private static double getBucketLowerBound(int index) {
+        int exponent = index / SUB_BUCKET_COUNT;
+        int subBucket = index % SUB_BUCKET_COUNT;
+        return (SUB_BUCKET_COUNT + subBucket) * Math.pow(2, exponent) / SUB_BUCKET_COUNT;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Wall time and heap allocation of each validation phase of a single definition. A definition is validated on a
+ * single thread, so the timings are recorded without synchronization. Starting a phase stops the running phase, hence
+ * a phase interrupted by an exception is still recorded when the next phase starts or when {@link #stop()} is called.
+ */
+class PhaseTimings {
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = getThreadMXBean();
+    private static final ValidationPhase[] PHASES = ValidationPhase.values();
+
+    private final long[] nanos = new long[PHASES.length];
+    private final long[] allocatedBytes = new long[PHASES.length];
+    private final int[] counts = new int[PHASES.length];
+    private ValidationPhase runningPhase;
+    private long phaseStartNanos;
+    private long phaseStartAllocatedBytes;
+
+    /**
+     * @param phase phase to start, the running phase is stopped first
+     */
+    void start(ValidationPhase phase) {
+        stop();
+        runningPhase = phase;
+        phaseStartAllocatedBytes = getAllocatedBytes();
+        phaseStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Stops the running phase, if any.
+     */
+    void stop() {
+        if (runningPhase == null) {
+            return;
+        }
+        long endNanos = System.nanoTime();
+        int index = runningPhase.ordinal();
+        nanos[index] += endNanos - phaseStartNanos;
+        allocatedBytes[index] += Math.max(getAllocatedBytes() - phaseStartAllocatedBytes, 0);
+        counts[index]++;
+        runningPhase = null;
+    }
+
+    /**
+     * @param other timings to add to these timings
+     */
+    void add(PhaseTimings other) {
+        for (int i = 0; i < PHASES.length; i++) {
+            nanos[i] += other.nanos[i];
+            allocatedBytes[i] += other.allocatedBytes[i];
+            counts[i] += other.counts[i];
+        }
+    }
+
+    long getNanos(ValidationPhase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    long getAllocatedBytes(ValidationPhase phase) {
+        return allocatedBytes[phase.ordinal()];
+    }
+
+    /**
+     * @return whether the phase has run for the definition, phases are skipped for cached results
+     */
+    boolean hasRun(ValidationPhase phase) {
+        return counts[phase.ordinal()] > 0;
+    }
+
+    long getTotalAllocatedBytes() {
+        long total = 0;
+        for (long phaseAllocatedBytes : allocatedBytes) {
+            total += phaseAllocatedBytes;
+        }
+        return total;
+    }
+
+    /**
+     * @return bytes allocated by the current thread so far, or 0 if the Java runtime does not measure allocations
+     */
+    static long getAllocatedBytes() {
+        if (THREAD_MX_BEAN == null) {
+            return 0;
+        }
+        return Math.max(THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId()), 0);
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadMXBean() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        if (!allocationMXBean.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        if (!allocationMXBean.isThreadAllocatedMemoryEnabled()) {
+            allocationMXBean.setThreadAllocatedMemoryEnabled(true);
+        }
+        return allocationMXBean;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits of the resources a single definition may use while it is validated, so a pathological definition, such as
+ * one with recursive or combinatorially exploding schemas, is aborted instead of holding up the rest of the run. A
+ * limit of 0 disables the limit.
+ * <p>
+ * The parsers cannot be interrupted safely from another thread, hence the time limit is checked between the validation
+ * phases and for each schema resolved, which is where the pathological definitions spend their time.
+ */
+class ResourceLimits {
+    static final ResourceLimits NONE = new ResourceLimits(0, 0, 0, 0);
+
+    private final long timeoutMillis;
+    private final long maxInputBytes;
+    private final int maxNestingDepth;
+    private final int maxResolvedSchemas;
+
+    /**
+     * @param timeoutMillis      maximum wall time of validating a definition in milliseconds
+     * @param maxInputBytes      maximum size of a definition in bytes
+     * @param maxNestingDepth    maximum nesting depth of the objects and arrays of a definition
+     * @param maxResolvedSchemas maximum number of schemas resolved while fully resolving a definition
+     */
+    ResourceLimits(long timeoutMillis, long maxInputBytes, int maxNestingDepth, int maxResolvedSchemas) {
+        this.timeoutMillis = timeoutMillis;
+        this.maxInputBytes = maxInputBytes;
+        this.maxNestingDepth = maxNestingDepth;
+        this.maxResolvedSchemas = maxResolvedSchemas;
+    }
+
+    boolean isEnabled() {
+        return timeoutMillis > 0 || maxInputBytes > 0 || maxNestingDepth > 0 || maxResolvedSchemas > 0;
+    }
+
+    boolean isNestingDepthLimited() {
+        return maxNestingDepth > 0;
+    }
+
+    /**
+     * @return settings of the limits, which identify the limits the cached validation results were produced under
+     */
+    String getKey() {
+        return timeoutMillis + "/" + maxInputBytes + "/" + maxNestingDepth + "/" + maxResolvedSchemas;
+    }
+
+    /**
+     * @return guard of a definition, which starts the time limit of the definition
+     */
+    Guard newGuard() {
+        return new Guard(this);
+    }
+
+    /**
+     * Tracks the resources used by a single definition. A definition is validated on a single thread, hence the guard
+     * is not synchronized.
+     */
+    static class Guard {
+        private final ResourceLimits limits;
+        private final long deadlineNanos;
+        private int resolvedSchemaCount;
+
+        private Guard(ResourceLimits limits) {
+            this.limits = limits;
+            this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(limits.timeoutMillis);
+        }
+
+        /**
+         * @param bytes size of the definition
+         * @throws ResourceLimitExceededException if the definition is larger than the limit
+         */
+        void checkInputSize(long bytes) {
+            if (limits.maxInputBytes > 0 && bytes > limits.maxInputBytes) {
+                throw new ResourceLimitExceededException("Definition size " + bytes + " bytes exceeds the limit of "
+                        + limits.maxInputBytes + " bytes");
+            }
+        }
+
+        /**
+         * Reads the tokens of the definition without building a tree, so a deeply nested definition is rejected
+         * before the parsers recurse into it. Syntax errors are left to the parsers to report.
+         *
+         * @param parser parser of the definition, which is closed
+         * @throws ResourceLimitExceededException if the definition is nested deeper than the limit
+         */
+        void checkNestingDepth(JsonParser parser) {
+            try (JsonParser tokenParser = parser) {
+                int depth = 0;
+                JsonToken token;
+                while ((token = tokenParser.nextToken()) != null) {
+                    if (token.isStructStart()) {
+                        if (++depth > limits.maxNestingDepth) {
+                            throw new ResourceLimitExceededException("Definition nesting depth exceeds the limit of "
+                                    + limits.maxNestingDepth);
+                        }
+                    } else if (token.isStructEnd()) {
+                        depth--;
+                    }
+                }
+            } catch (IOException e) {
+                // The definition is not well formed, which is reported when it is parsed
+            }
+        }
+
+        /**
+         * @throws ResourceLimitExceededException if the time limit of the definition has passed
+         */
+        void checkTimeout() {
+            if (limits.timeoutMillis > 0 && System.nanoTime() - deadlineNanos > 0) {
+                throw new ResourceLimitExceededException("Validation time exceeds the limit of "
+                        + limits.timeoutMillis + " ms");
+            }
+        }
+
+        /**
+         * Called for each schema resolved while fully resolving the definition.
+         *
+         * @throws ResourceLimitExceededException if too many schemas are resolved or the time limit has passed
+         */
+        void onSchemaResolved() {
+            if (limits.maxResolvedSchemas > 0 && ++resolvedSchemaCount > limits.maxResolvedSchemas) {
+                throw new ResourceLimitExceededException("Number of resolved schemas exceeds the limit of "
+                        + limits.maxResolvedSchemas);
+            }
+            checkTimeout();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Partial result of a shard of a location, written by each process validating a shard and merged into the summary of
+ * the whole location once all the shards are validated. The file has the summary counters of the shard and the
+ * counters and the verdict of each swagger file, without the log lines.
+ */
+class ShardResultFile {
+    private static final Logger log = LoggerFactory.getLogger(ShardResultFile.class);
+    private static final String FORMAT = "apim-swagger-validator-shard";
+    private static final int FORMAT_VERSION = 1;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ShardSelector selector;
+    private final String location;
+    private final int validationLevel;
+    private final int shardIndex;
+    private final int shardCount;
+    private final Map<String, ValidationResult> fileResults = new TreeMap<>();
+
+    /**
+     * @param selector        selector of the files of the shard
+     * @param location        location given to the tool
+     * @param validationLevel validation level [0,1,2]
+     * @param shardIndex      index of the shard
+     * @param shardCount      number of shards
+     */
+    ShardResultFile(ShardSelector selector, String location, int validationLevel, int shardIndex, int shardCount) {
+        this.selector = selector;
+        this.location = location;
+        this.validationLevel = validationLevel;
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * @param path   path of the validated swagger file
+     * @param result validation result of the file
+     */
+    void add(Path path, ValidationResult result) {
+        String relativePath = selector.getRelativePath(path);
+        synchronized (fileResults) {
+            fileResults.put(relativePath, result);
+        }
+    }
+
+    /**
+     * @param file    file to write the partial result to
+     * @param summary summary of the shard
+     * @throws IOException if the file cannot be written
+     */
+    void write(Path file, ValidationSummary summary) throws IOException {
+        ObjectNode root = mapper.createObjectNode();
+        root.put("format", FORMAT);
+        root.put("version", FORMAT_VERSION);
+        root.put("location", location);
+        root.put("validationLevel", validationLevel);
+        root.put("shardIndex", shardIndex);
+        root.put("shardCount", shardCount);
+        root.set("summary", summary.toJson());
+        ArrayNode fileNodes = root.putArray("files");
+        synchronized (fileResults) {
+            for (Map.Entry<String, ValidationResult> fileResult : fileResults.entrySet()) {
+                ValidationResult result = fileResult.getValue();
+                ObjectNode fileNode = fileNodes.addObject();
+                fileNode.put("path", fileResult.getKey());
+                fileNode.put("valid", result.getValidationSuccessFileCount() > 0
+                        && result.getValidationFailedFileCount() == 0);
+                ObjectNode countersNode = result.toJson();
+                countersNode.remove("log");
+                fileNode.setAll(countersNode);
+            }
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tempFile = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        mapper.writeValue(tempFile.toFile(), root);
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Shard " + shardIndex + " of " + shardCount + " --- Files: " + fileResults.size()
+                + ". Result file: " + file);
+    }
+
+    /**
+     * Adds the summaries of the shards to the given summary, after verifying that the files are the complete set of
+     * shards of the same validation.
+     *
+     * @param files   partial result files of all the shards
+     * @param summary summary to add the counters of the shards to
+     * @throws IOException if a file cannot be read or the files are not the complete set of shards
+     */
+    static void merge(List<Path> files, ValidationSummary summary) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        ValidationSummary mergedSummary = new ValidationSummary();
+        Set<Integer> shardIndexes = new HashSet<>();
+        Set<String> paths = new HashSet<>();
+        JsonNode firstRoot = null;
+        for (Path file : files) {
+            JsonNode root = mapper.readTree(file.toFile());
+            if (!FORMAT.equals(root.path("format").asText()) || root.path("version").asInt() != FORMAT_VERSION) {
+                throw new IOException(file + " is not a shard result file of this version of the tool");
+            }
+            if (firstRoot == null) {
+                firstRoot = root;
+            } else if (root.path("shardCount").asInt() != firstRoot.path("shardCount").asInt()
+                    || root.path("validationLevel").asInt() != firstRoot.path("validationLevel").asInt()) {
+                throw new IOException(file + " has a different shard count or validation level than "
+                        + files.get(0));
+            } else if (!root.path("location").asText().equals(firstRoot.path("location").asText())) {
+                // The location may be mounted at a different path in each container, hence it is not enforced
+                log.info(file + " was validated from the location " + root.path("location").asText()
+                        + " while " + files.get(0) + " was validated from " + firstRoot.path("location").asText());
+            }
+            int shardIndex = root.path("shardIndex").asInt();
+            if (!shardIndexes.add(shardIndex)) {
+                throw new IOException("Shard " + shardIndex + " is given more than once");
+            }
+            for (JsonNode fileNode : root.path("files")) {
+                if (!paths.add(fileNode.path("path").asText())) {
+                    throw new IOException("File " + fileNode.path("path").asText()
+                            + " is validated by more than one shard");
+                }
+            }
+            mergedSummary.add(ValidationSummary.fromJson(root.path("summary")));
+        }
+        int shardCount = firstRoot != null ? firstRoot.path("shardCount").asInt() : 0;
+        for (int shardIndex = 0; shardIndex < shardCount; shardIndex++) {
+            if (!shardIndexes.contains(shardIndex)) {
+                throw new IOException("Shard " + shardIndex + " of " + shardCount + " is missing");
+            }
+        }
+        summary.add(mergedSummary);
+        log.info("Merged " + shardCount + " shards --- Files: " + paths.size());
+    }
+}
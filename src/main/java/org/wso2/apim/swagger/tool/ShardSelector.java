@@ -0,0 +1,81 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.CRC32;
+
+/**
+ * Selects the swagger files of a location validated by one of several processes. The files are partitioned by a hash
+ * of their path relative to the location, so every process selects a disjoint set of files and the partition is the
+ * same on every run, machine and operating system. The entries of an archive are partitioned by the path of the entry
+ * under the archive, so a large archive is spread across the processes as well.
+ */
+class ShardSelector {
+    private final Path root;
+    private final int shardIndex;
+    private final int shardCount;
+
+    /**
+     * @param location   location given to the tool, which the paths are relative to
+     * @param shardIndex index of the shard validated by this process, from 0 to shardCount - 1
+     * @param shardCount number of shards
+     */
+    ShardSelector(String location, int shardIndex, int shardCount) {
+        this.root = Paths.get(location).toAbsolutePath();
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * @param path path of a swagger file under the location, or of an archive entry resolved against the archive path
+     * @return whether the file is validated by this shard
+     */
+    boolean isSelected(Path path) {
+        return getShard(getRelativePath(path), shardCount) == shardIndex;
+    }
+
+    /**
+     * @param path path of a swagger file under the location, or of an archive entry resolved against the archive path
+     * @return path relative to the location with / separators, or the file name when the location is the file itself
+     */
+    String getRelativePath(Path path) {
+        Path absolutePath = path.toAbsolutePath();
+        Path relativePath = absolutePath.startsWith(root) && !absolutePath.equals(root) ? root.relativize(absolutePath)
+                : absolutePath.getFileName();
+        return relativePath.toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * @param relativePath path relative to the location with / separators
+     * @param shardCount   number of shards
+     * @return shard of the path
+     */
+    static int getShard(String relativePath, int shardCount) {
+        // CRC32 is specified independently of the Java runtime, unlike the hash codes of the path objects
+        CRC32 crc = new CRC32();
+        crc.update(relativePath.getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % shardCount);
+    }
+}
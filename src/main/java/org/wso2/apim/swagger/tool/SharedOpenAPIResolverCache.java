@@ -0,0 +1,167 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.parser.OpenAPIResolver;
+import io.swagger.v3.parser.ResolverCache;
+import io.swagger.v3.parser.core.models.AuthorizationValue;
+import io.swagger.v3.parser.models.RefFormat;
+import io.swagger.v3.parser.processors.ComponentsProcessor;
+import io.swagger.v3.parser.processors.OperationProcessor;
+import io.swagger.v3.parser.processors.PathsProcessor;
+import io.swagger.v3.parser.util.DeserializationUtils;
+import io.swagger.v3.parser.util.OpenAPIDeserializer;
+import io.swagger.v3.parser.util.RefUtils;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OpenAPI 3 resolver cache which loads the external references through the process-wide {@link ExternalRefCache}.
+ * The external references are resolved in the same way as {@link ResolverCache}, except that the referred files are
+ * read and parsed once per run instead of once per definition. The internal references are resolved by
+ * {@link ResolverCache} itself.
+ */
+class SharedOpenAPIResolverCache extends ResolverCache {
+    // The definitions are resolved without a location, hence the parser resolves the files from the working directory
+    private static final Path PARENT_DIRECTORY = Paths.get(".");
+
+    private final List<AuthorizationValue> auths;
+    private final ExternalRefCache externalRefCache;
+    // Resolved external references of the definition, the parser only exposes read only views of its own maps
+    private final Map<String, Object> resolutionCache = new HashMap<>();
+    private final Map<String, String> externalFileCache = new HashMap<>();
+
+    private SharedOpenAPIResolverCache(OpenAPI openAPI, List<AuthorizationValue> auths,
+                                       ExternalRefCache externalRefCache) {
+        super(openAPI, auths, null);
+        this.auths = auths;
+        this.externalRefCache = externalRefCache;
+    }
+
+    /**
+     * Resolves the references of the definition in the same way as {@link OpenAPIResolver#resolve()}.
+     *
+     * @param openAPI          definition to resolve
+     * @param externalRefCache cache of the external references
+     * @return resolved definition
+     */
+    static OpenAPI resolve(OpenAPI openAPI, ExternalRefCache externalRefCache) {
+        if (openAPI == null) {
+            return null;
+        }
+        SharedOpenAPIResolverCache cache = new SharedOpenAPIResolverCache(openAPI,
+                new ArrayList<AuthorizationValue>(), externalRefCache);
+        new PathsProcessor(cache, openAPI, new OpenAPIResolver.Settings()).processPaths();
+        new ComponentsProcessor(openAPI, cache).processComponents();
+        if (openAPI.getPaths() != null) {
+            OperationProcessor operationProcessor = new OperationProcessor(cache, openAPI);
+            for (PathItem pathItem : openAPI.getPaths().values()) {
+                if (pathItem.readOperations() != null) {
+                    for (Operation operation : pathItem.readOperations()) {
+                        operationProcessor.processOperation(operation);
+                    }
+                }
+            }
+        }
+        return openAPI;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T loadRef(String ref, RefFormat refFormat, Class<T> expectedType) {
+        if (refFormat == RefFormat.INTERNAL) {
+            return super.loadRef(ref, refFormat, expectedType);
+        }
+        String[] refParts = ref.split("#/");
+        if (refParts.length > 2) {
+            throw new RuntimeException("Invalid ref format: " + ref);
+        }
+        String file = refParts[0];
+        String definitionPath = refParts.length == 2 ? refParts[1] : null;
+        Object previouslyResolvedEntity = resolutionCache.get(ref);
+        if (previouslyResolvedEntity != null) {
+            return expectedType.cast(previouslyResolvedEntity);
+        }
+        String contents = externalFileCache.get(file);
+        if (contents == null) {
+            contents = externalRefCache.getContents(file,
+                    () -> RefUtils.readExternalRef(file, refFormat, auths, PARENT_DIRECTORY));
+            externalFileCache.put(file, contents);
+        }
+        if (definitionPath == null) {
+            T result = DeserializationUtils.deserialize(contents, file, expectedType);
+            resolutionCache.put(ref, result);
+            return result;
+        }
+        JsonNode tree = externalRefCache.getOpenAPITree(file, contents,
+                content -> DeserializationUtils.deserializeIntoTree(content, file));
+        for (String jsonPathElement : definitionPath.split("/")) {
+            tree = tree.get(unescapePointer(jsonPathElement));
+            if (tree == null) {
+                throw new RuntimeException("Could not find " + definitionPath + " in contents of " + file);
+            }
+        }
+        T result;
+        if (expectedType.equals(Schema.class)) {
+            result = (T) new OpenAPIDeserializer().getSchema((ObjectNode) tree, definitionPath.replace("/", "."),
+                    null);
+        } else {
+            result = DeserializationUtils.deserialize(tree, file, expectedType);
+        }
+        updateLocalRefs(file, result);
+        resolutionCache.put(ref, result);
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> getResolutionCache() {
+        return Collections.unmodifiableMap(resolutionCache);
+    }
+
+    @Override
+    public Map<String, String> getExternalFileCache() {
+        return Collections.unmodifiableMap(externalFileCache);
+    }
+
+    static String unescapePointer(String jsonPathElement) {
+        try {
+            jsonPathElement = URLDecoder.decode(jsonPathElement, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            // UTF-8 is always supported
+        }
+        // JSON pointer escapes as in RFC 6901, section 4
+        return jsonPathElement.replaceAll("~1", "/").replaceAll("~0", "~");
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.swagger.models.Model;
+import io.swagger.models.Operation;
+import io.swagger.models.RefModel;
+import io.swagger.models.Swagger;
+import io.swagger.models.auth.AuthorizationValue;
+import io.swagger.models.parameters.BodyParameter;
+import io.swagger.models.parameters.Parameter;
+import io.swagger.models.parameters.RefParameter;
+import io.swagger.models.refs.RefFormat;
+import io.swagger.parser.ResolverCache;
+import io.swagger.parser.SwaggerResolver;
+import io.swagger.parser.processors.DefinitionsProcessor;
+import io.swagger.parser.processors.OperationProcessor;
+import io.swagger.parser.processors.ParameterProcessor;
+import io.swagger.parser.processors.PathsProcessor;
+import io.swagger.parser.util.DeserializationUtils;
+import io.swagger.parser.util.RefUtils;
+import io.swagger.parser.util.SwaggerDeserializer;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Swagger 2 resolver cache which loads the external references through the process-wide {@link ExternalRefCache}.
+ * The external references are resolved in the same way as {@link ResolverCache}, except that the referred files are
+ * read and parsed once per run instead of once per definition. The internal references are resolved by
+ * {@link ResolverCache} itself.
+ */
+class SharedSwaggerResolverCache extends ResolverCache {
+    // The definitions are resolved without a location, hence the parser resolves the files from the working directory
+    private static final Path PARENT_DIRECTORY = Paths.get(".");
+
+    private final Swagger swagger;
+    private final List<AuthorizationValue> auths;
+    private final ExternalRefCache externalRefCache;
+    // Resolved external references of the definition, the parser only exposes read only views of its own maps
+    private final Map<String, Object> resolutionCache = new HashMap<>();
+    private final Map<String, String> externalFileCache = new HashMap<>();
+
+    private SharedSwaggerResolverCache(Swagger swagger, List<AuthorizationValue> auths,
+                                       ExternalRefCache externalRefCache) {
+        super(swagger, auths, null);
+        this.swagger = swagger;
+        this.auths = auths;
+        this.externalRefCache = externalRefCache;
+    }
+
+    /**
+     * Resolves the references of the definition in the same way as {@link SwaggerResolver#resolve()}.
+     *
+     * @param swagger          definition to resolve
+     * @param externalRefCache cache of the external references
+     * @return resolved definition
+     */
+    static Swagger resolve(Swagger swagger, ExternalRefCache externalRefCache) {
+        if (swagger == null) {
+            return null;
+        }
+        SharedSwaggerResolverCache cache = new SharedSwaggerResolverCache(swagger,
+                new ArrayList<AuthorizationValue>(), externalRefCache);
+        if (swagger.getParameters() != null) {
+            ParameterProcessor parameterProcessor = new ParameterProcessor(cache, swagger);
+            for (Map.Entry<String, Parameter> parameter : swagger.getParameters().entrySet()) {
+                if (parameter.getValue() instanceof RefParameter
+                        && ((RefParameter) parameter.getValue()).getRefFormat() == RefFormat.RELATIVE) {
+                    parameter.setValue(parameterProcessor.processParameters(
+                            Collections.singletonList(parameter.getValue())).get(0));
+                }
+            }
+        }
+        new PathsProcessor(cache, swagger, new SwaggerResolver.Settings()).processPaths();
+        new DefinitionsProcessor(cache, swagger).processDefinitions();
+        if (swagger.getPaths() != null) {
+            OperationProcessor operationProcessor = new OperationProcessor(cache, swagger);
+            for (io.swagger.models.Path path : swagger.getPaths().values()) {
+                if (path.getOperations() != null) {
+                    for (Operation operation : path.getOperations()) {
+                        operationProcessor.processOperation(operation);
+                    }
+                }
+            }
+        }
+        return swagger;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T loadRef(String ref, RefFormat refFormat, Class<T> expectedType) {
+        if (refFormat == RefFormat.INTERNAL) {
+            return super.loadRef(ref, refFormat, expectedType);
+        }
+        String[] refParts = ref.split("#/");
+        if (refParts.length > 2) {
+            throw new RuntimeException("Invalid ref format: " + ref);
+        }
+        String file = refParts[0];
+        String definitionPath = refParts.length == 2 ? refParts[1] : null;
+        Object previouslyResolvedEntity = resolutionCache.get(ref);
+        if (previouslyResolvedEntity != null) {
+            return expectedType.cast(previouslyResolvedEntity);
+        }
+        String contents = externalFileCache.get(file);
+        if (contents == null) {
+            contents = externalRefCache.getContents(file,
+                    () -> RefUtils.readExternalRef(file, refFormat, auths, PARENT_DIRECTORY));
+            externalFileCache.put(file, contents);
+        }
+        if (definitionPath == null) {
+            T result = DeserializationUtils.deserialize(contents, file, expectedType);
+            resolutionCache.put(ref, result);
+            return result;
+        }
+        JsonNode tree = externalRefCache.getSwaggerTree(file, contents,
+                content -> DeserializationUtils.deserializeIntoTree(content, file));
+        for (String jsonPathElement : definitionPath.split("/")) {
+            tree = tree.get(SharedOpenAPIResolverCache.unescapePointer(jsonPathElement));
+            if (tree == null) {
+                throw new RuntimeException("Could not find " + definitionPath + " in contents of " + file);
+            }
+        }
+        T result;
+        if (expectedType.equals(Model.class)) {
+            result = (T) new SwaggerDeserializer().definition((ObjectNode) tree, definitionPath.replace("/", "."),
+                    null);
+        } else {
+            result = DeserializationUtils.deserialize(tree, file, expectedType);
+        }
+        updateLocalRefs(file, result);
+        resolutionCache.put(ref, result);
+        if (result instanceof BodyParameter && ((BodyParameter) result).getSchema() instanceof RefModel) {
+            // The model of an external body parameter is added to the definitions as done by the parser
+            RefModel refModel = (RefModel) ((BodyParameter) result).getSchema();
+            String externalRef = RefUtils.isAnExternalRefFormat(refModel.getRefFormat()) ? refModel.getReference()
+                    : ref.substring(0, ref.indexOf('#')) + refModel.getReference();
+            swagger.addDefinition(refModel.getSimpleRef(), loadRef(externalRef, refFormat, Model.class));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> getResolutionCache() {
+        return Collections.unmodifiableMap(resolutionCache);
+    }
+
+    @Override
+    public Map<String, String> getExternalFileCache() {
+        return Collections.unmodifiableMap(externalFileCache);
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Reads the swagger files of a zip, jar, tar or gzip compressed tar archive without extracting the archive to disk.
+ * The entries are read one after the other from a single stream, so the archive is decompressed once on the reading
+ * thread while the entries read earlier are validated by the workers.
+ */
+class SwaggerArchive {
+    private static final int TAR_BLOCK_SIZE = 512;
+    private static final int TAR_NAME_OFFSET = 0;
+    private static final int TAR_NAME_LENGTH = 100;
+    private static final int TAR_SIZE_OFFSET = 124;
+    private static final int TAR_SIZE_LENGTH = 12;
+    private static final int TAR_TYPE_OFFSET = 156;
+    private static final int TAR_MAGIC_OFFSET = 257;
+    private static final int TAR_PREFIX_OFFSET = 345;
+    private static final int TAR_PREFIX_LENGTH = 155;
+
+    /**
+     * Receives the entries of an archive.
+     */
+    interface EntryHandler {
+        /**
+         * @param entryPath path of the entry in the archive
+         * @param content   content of the entry, which has to be closed by the handler once it is validated
+         */
+        void accept(String entryPath, SwaggerFileContent content);
+    }
+
+    /**
+     * @param path path of a file
+     * @return whether the file is an archive, judged by the extension of its name
+     */
+    static boolean isArchive(Path path) {
+        Path fileName = path.getFileName();
+        return fileName != null && (isZip(fileName.toString()) || isTar(fileName.toString()));
+    }
+
+    /**
+     * Reads the regular file entries of the archive and passes them to the handler in the order of the archive.
+     *
+     * @param archivePath path of the archive
+     * @param budget      budget to reserve the size of each entry from
+     * @param entryFilter selects the entries passed to the handler by their path, the other entries are skipped
+     *                    without being read to memory
+     * @param handler     handler of the entries
+     * @throws IOException if the archive cannot be read or is corrupted
+     */
+    static void forEachEntry(Path archivePath, InFlightByteBudget budget, Predicate<String> entryFilter,
+                             EntryHandler handler) throws IOException {
+        String fileName = archivePath.getFileName().toString();
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(archivePath))) {
+            if (isZip(fileName)) {
+                readZip(inputStream, budget, entryFilter, handler);
+            } else {
+                String lowerCaseName = fileName.toLowerCase(Locale.ROOT);
+                boolean compressed = lowerCaseName.endsWith(".gz") || lowerCaseName.endsWith(".tgz");
+                readTar(compressed ? new GZIPInputStream(inputStream, 64 * 1024) : inputStream, budget, entryFilter,
+                        handler);
+            }
+        }
+    }
+
+    private static boolean isZip(String fileName) {
+        String lowerCaseName = fileName.toLowerCase(Locale.ROOT);
+        return lowerCaseName.endsWith(".zip") || lowerCaseName.endsWith(".jar");
+    }
+
+    private static boolean isTar(String fileName) {
+        String lowerCaseName = fileName.toLowerCase(Locale.ROOT);
+        return lowerCaseName.endsWith(".tar") || lowerCaseName.endsWith(".tar.gz") || lowerCaseName.endsWith(".tgz");
+    }
+
+    private static void readZip(InputStream inputStream, InFlightByteBudget budget, Predicate<String> entryFilter,
+                                EntryHandler handler) throws IOException {
+        // A stream which is not a zip archive has no entries, hence the signature is verified to report it
+        inputStream.mark(4);
+        byte[] signature = new byte[4];
+        int signatureLength = inputStream.read(signature);
+        inputStream.reset();
+        if (signatureLength > 0 && (signatureLength < 4 || signature[0] != 'P' || signature[1] != 'K')) {
+            throw new ZipException("Invalid zip archive, the archive may be corrupted");
+        }
+        ZipInputStream zipInputStream = new ZipInputStream(inputStream, StandardCharsets.UTF_8);
+        ZipEntry entry;
+        while ((entry = zipInputStream.getNextEntry()) != null) {
+            String entryPath = getEntryPath(entry.getName());
+            if (!entry.isDirectory() && entryFilter.test(entryPath)) {
+                // The size is not known when the entry is written with a data descriptor, hence read to the end
+                handler.accept(entryPath, SwaggerFileContent.read(zipInputStream, entry.getSize(), budget));
+            }
+        }
+    }
+
+    /**
+     * Reads a POSIX (ustar) tar stream. The long names written by GNU tar and the path of the pax extended headers
+     * are supported, while the other special entries such as links and devices are skipped.
+     */
+    private static void readTar(InputStream inputStream, InFlightByteBudget budget, Predicate<String> entryFilter,
+                                EntryHandler handler) throws IOException {
+        byte[] header = new byte[TAR_BLOCK_SIZE];
+        String longName = null;
+        while (readFully(inputStream, header)) {
+            if (isZeroBlock(header)) {
+                // The archive ends with two zero blocks
+                return;
+            }
+            long size = parseTarNumber(header, TAR_SIZE_OFFSET, TAR_SIZE_LENGTH);
+            char type = (char) header[TAR_TYPE_OFFSET];
+            if (type == 'L' || type == 'x') {
+                // The name of the next entry is given by a GNU long name entry or a pax extended header
+                byte[] data = readTarData(inputStream, size);
+                String name = type == 'L' ? getString(data, 0, data.length) : getPaxPath(data);
+                if (name != null) {
+                    longName = name;
+                }
+                continue;
+            }
+            String name = longName != null ? longName : getTarName(header);
+            longName = null;
+            String entryPath = getEntryPath(name);
+            if ((type == '0' || type == '\0' || type == '7') && entryFilter.test(entryPath)) {
+                handler.accept(entryPath, SwaggerFileContent.read(inputStream, size, budget));
+                skip(inputStream, getPadding(size));
+            } else {
+                skip(inputStream, size + getPadding(size));
+            }
+        }
+    }
+
+    private static String getTarName(byte[] header) {
+        String name = getString(header, TAR_NAME_OFFSET, TAR_NAME_LENGTH);
+        boolean ustar = header[TAR_MAGIC_OFFSET] == 'u' && header[TAR_MAGIC_OFFSET + 1] == 's'
+                && header[TAR_MAGIC_OFFSET + 2] == 't' && header[TAR_MAGIC_OFFSET + 3] == 'a'
+                && header[TAR_MAGIC_OFFSET + 4] == 'r';
+        if (ustar) {
+            String prefix = getString(header, TAR_PREFIX_OFFSET, TAR_PREFIX_LENGTH);
+            if (!prefix.isEmpty()) {
+                return prefix + "/" + name;
+            }
+        }
+        return name;
+    }
+
+    /**
+     * @return the path of the pax extended header records, which are written as "length key=value\n"
+     */
+    private static String getPaxPath(byte[] data) {
+        int offset = 0;
+        while (offset < data.length) {
+            int space = offset;
+            while (space < data.length && data[space] != ' ') {
+                space++;
+            }
+            int length;
+            try {
+                length = Integer.parseInt(new String(data, offset, space - offset, StandardCharsets.UTF_8));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (length <= space - offset || offset + length > data.length) {
+                return null;
+            }
+            String record = new String(data, space + 1, offset + length - space - 2, StandardCharsets.UTF_8);
+            if (record.startsWith("path=")) {
+                return record.substring("path=".length());
+            }
+            offset += length;
+        }
+        return null;
+    }
+
+    /**
+     * Parses a numeric header field, which is written in octal or, for large values, in base-256 with the high bit of
+     * the first byte set.
+     */
+    private static long parseTarNumber(byte[] header, int offset, int length) throws IOException {
+        if ((header[offset] & 0x80) != 0) {
+            long value = header[offset] & 0x7f;
+            for (int i = offset + 1; i < offset + length; i++) {
+                value = (value << 8) | (header[i] & 0xff);
+            }
+            return value;
+        }
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            byte digit = header[i];
+            if (digit == 0 || digit == ' ') {
+                if (value > 0) {
+                    break;
+                }
+                continue;
+            }
+            if (digit < '0' || digit > '7') {
+                throw new IOException("Invalid tar header, the archive may be corrupted");
+            }
+            value = (value << 3) + (digit - '0');
+        }
+        return value;
+    }
+
+    private static String getString(byte[] data, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && data[end] != 0) {
+            end++;
+        }
+        return new String(data, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readTarData(InputStream inputStream, long size) throws IOException {
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IOException("Invalid tar header, the archive may be corrupted");
+        }
+        byte[] data = new byte[(int) size];
+        if (!readFully(inputStream, data) && size > 0) {
+            throw new EOFException("Unexpected end of the tar archive");
+        }
+        skip(inputStream, getPadding(size));
+        return data;
+    }
+
+    /**
+     * @return false if the stream ends before the first byte, which is the end of an archive without trailing blocks
+     */
+    private static boolean readFully(InputStream inputStream, byte[] data) throws IOException {
+        int offset = 0;
+        while (offset < data.length) {
+            int length = inputStream.read(data, offset, data.length - offset);
+            if (length == -1) {
+                if (offset == 0) {
+                    return false;
+                }
+                throw new EOFException("Unexpected end of the tar archive");
+            }
+            offset += length;
+        }
+        return true;
+    }
+
+    private static void skip(InputStream inputStream, long bytes) throws IOException {
+        byte[] buffer = new byte[8192];
+        long remaining = bytes;
+        while (remaining > 0) {
+            int length = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (length == -1) {
+                throw new EOFException("Unexpected end of the tar archive");
+            }
+            remaining -= length;
+        }
+    }
+
+    private static long getPadding(long size) {
+        return (TAR_BLOCK_SIZE - size % TAR_BLOCK_SIZE) % TAR_BLOCK_SIZE;
+    }
+
+    private static boolean isZeroBlock(byte[] block) {
+        for (byte value : block) {
+            if (value != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return entry name without the leading separators and "./", so the entry path can be resolved against the
+     * archive path
+     */
+    private static String getEntryPath(String name) {
+        String entryPath = name;
+        while (entryPath.startsWith("/") || entryPath.startsWith("\\") || entryPath.startsWith("./")) {
+            entryPath = entryPath.substring(entryPath.startsWith("./") ? 2 : 1);
+        }
+        return entryPath;
+    }
+}
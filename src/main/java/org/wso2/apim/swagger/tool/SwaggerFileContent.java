@@ -0,0 +1,147 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Content of a swagger file held for validation. Small files are read to the heap with a single copy, while large
+ * files are memory-mapped so the parsers read them straight from the page cache. The size of the file is reserved from
+ * the in-flight byte budget until the content is closed.
+ */
+class SwaggerFileContent implements AutoCloseable {
+    // Mapping a file has a fixed cost, hence only the files larger than this are mapped
+    static final int MAPPING_THRESHOLD = 1024 * 1024;
+
+    private final ByteBuffer content;
+    private final InFlightByteBudget budget;
+    private final long reservedBytes;
+
+    private SwaggerFileContent(ByteBuffer content, InFlightByteBudget budget, long reservedBytes) {
+        this.content = content;
+        this.budget = budget;
+        this.reservedBytes = reservedBytes;
+    }
+
+    /**
+     * @param path   path of the swagger file
+     * @param budget budget to reserve the size of the file from
+     * @return content of the file
+     * @throws IOException if the file cannot be read or is too large to be validated
+     */
+    static SwaggerFileContent open(Path path, InFlightByteBudget budget) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File size " + size + " exceeds the maximum supported size of "
+                        + Integer.MAX_VALUE + " bytes");
+            }
+            long reservedBytes = budget.acquire(size);
+            try {
+                ByteBuffer content;
+                if (size < MAPPING_THRESHOLD) {
+                    content = ByteBuffer.wrap(Files.readAllBytes(path));
+                } else {
+                    // The mapping stays valid after the channel is closed and is released when the buffer is collected
+                    content = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                }
+                return new SwaggerFileContent(content, budget, reservedBytes);
+            } catch (IOException | RuntimeException e) {
+                budget.release(reservedBytes);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Reads a swagger file from a stream, such as an entry of an archive. The size of the file is reserved from the
+     * budget before it is read when the size is known, so the reader waits while the budget is used by the files being
+     * validated.
+     *
+     * @param inputStream stream positioned at the start of the file, which is not closed
+     * @param size        size of the file or -1 if it is not known, in which case the stream is read to the end
+     * @param budget      budget to reserve the size of the file from
+     * @return content of the file
+     * @throws IOException if the file cannot be read or is too large to be validated
+     */
+    static SwaggerFileContent read(InputStream inputStream, long size, InFlightByteBudget budget) throws IOException {
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IOException("File size " + size + " exceeds the maximum supported size of "
+                    + (Integer.MAX_VALUE - 8) + " bytes");
+        }
+        if (size < 0) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, length);
+            }
+            byte[] content = outputStream.toByteArray();
+            return new SwaggerFileContent(ByteBuffer.wrap(content), budget, budget.acquire(content.length));
+        }
+        long reservedBytes = budget.acquire(size);
+        try {
+            byte[] content = new byte[(int) size];
+            int offset = 0;
+            while (offset < content.length) {
+                int length = inputStream.read(content, offset, content.length - offset);
+                if (length == -1) {
+                    throw new EOFException("Unexpected end of the file after " + offset + " of " + size + " bytes");
+                }
+                offset += length;
+            }
+            return new SwaggerFileContent(ByteBuffer.wrap(content), budget, reservedBytes);
+        } catch (IOException | RuntimeException e) {
+            budget.release(reservedBytes);
+            throw e;
+        }
+    }
+
+    /**
+     * @param content content of a swagger file already read to the heap
+     * @param budget  budget to reserve the size of the content from
+     * @return content of the file
+     * @throws IOException if the thread is interrupted while waiting for the budget
+     */
+    static SwaggerFileContent wrap(byte[] content, InFlightByteBudget budget) throws IOException {
+        return new SwaggerFileContent(ByteBuffer.wrap(content), budget, budget.acquire(content.length));
+    }
+
+    /**
+     * @return read only view of the content, positioned at the start of the file
+     */
+    ByteBuffer getContent() {
+        return content.asReadOnlyBuffer();
+    }
+
+    @Override
+    public void close() {
+        budget.release(reservedBytes);
+    }
+}
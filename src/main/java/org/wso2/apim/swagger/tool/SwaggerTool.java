@@ -23,24 +23,45 @@ package org.wso2.apim.swagger.tool;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.swagger.models.Swagger;
 import io.swagger.parser.Swagger20Parser;
 import io.swagger.parser.SwaggerParser;
+import io.swagger.parser.SwaggerResolver;
+import io.swagger.parser.util.DeserializationUtils;
 import io.swagger.parser.util.SwaggerDeserializationResult;
+import io.swagger.util.Json;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.media.Schema;
 import io.swagger.v3.parser.ObjectMapperFactory;
+import io.swagger.v3.parser.OpenAPIResolver;
 import io.swagger.v3.parser.OpenAPIV3Parser;
+import io.swagger.v3.parser.core.models.AuthorizationValue;
 import io.swagger.v3.parser.core.models.ParseOptions;
 import io.swagger.v3.parser.core.models.SwaggerParseResult;
+import io.swagger.v3.parser.util.OpenAPIDeserializer;
+import io.swagger.v3.parser.util.ResolverFully;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Swagger Validation Tool Main Class: This Class will work as a CLI tool to validate the Swagger 2 and OpenAPI
@@ -48,63 +69,328 @@ import java.util.List;
  */
 public class SwaggerTool {
     private static final Logger log = LoggerFactory.getLogger(SwaggerTool.class);
-    static int totalFileCount = 0;
-    static int validationFailedFileCount = 0;
-    static int validationSuccessFileCount = 0;
-    static int totalMalformedSwaggerFiles = 0;
-    static int totalPartialyPasedSwaggerFiles = 0;
+    private static final String USAGE = "\nUsage: \t java -jar apim-swagger-validator.jar " +
+            "[<File uri> | <Directory uri> | <Swagger String>] [0 | 1 | 2] [options] \n 0 \tValidation disabled. " +
+            "Only verify whether the swagger/openAPI definition is returned by the validator. " +
+            "\n 1 \tValidate as in WSO2 API Manager 4.0.0 and verify whether the swagger/openAPI " +
+            "definition is returned by the validator. \n 2 \tFully validate the definitions and verify " +
+            "whether the swagger/openAPI definition is returned by the validator" +
+            "\n Options: \n --threads=<count> \tNumber of swagger files validated in parallel when a directory " +
+            "is provided. Default is 1 \n --virtual-threads \tRun the validations on virtual threads when " +
+            "supported by the Java runtime \n --cache \tUse the result cache, which the cache options also " +
+            "enable \n --no-cache \tValidate all the definitions without using the result cache \n " +
+            "--clear-cache \tDiscard the cached results before validating \n " +
+            "--cache-dir=<directory> \tDirectory of the result cache. Default is ~/.apim-swagger-validator \n " +
+            "--cache-size=<entries> \tMaximum number of cached results. Default is 100000 \n --server \tStart " +
+            "a validation server instead of validating a single input \n --host=<address> \tAddress of the " +
+            "validation server. Default is 127.0.0.1 \n --port=<port> \tPort of the validation server. Default " +
+            "is 9095 \n --queue-size=<count> \tNumber of requests queued for the validation workers before the " +
+            "requests are rejected. Default is 64 \n --max-request-mb=<megabytes> \tMaximum size of a request body " +
+            "of the validation server. Default is 64 \n --max-in-flight-mb=<megabytes> \tMaximum size of the swagger " +
+            "files held in memory at once. Default is one eighth of the maximum heap size \n --metrics \tReport the " +
+            "latency percentiles of the validation phases and the slowest definitions after the summary \n " +
+            "--slowest=<count> \tNumber of the slowest definitions reported. Default is 10 \n --metrics-file=<file> " +
+            "\tWrite the metrics to the file, as JSON if the file name ends with .json and in the Prometheus text " +
+            "format otherwise \n --no-ref-cache \tLoad the external $refs of each definition separately \n " +
+            "--ref-cache-mb=<megabytes> \tMaximum size of the cached external $refs. Default is 64 \n " +
+            "--ref-mirror=<directory> \tResolve the remote $refs from the local copies in the directory, stored as " +
+            "<directory>/<host>/<path> \n --watch \tKeep validating the files of the location as they are created or " +
+            "modified \n --watch-debounce-ms=<milliseconds> \tTime to wait for further changes before validating the " +
+            "changed files. Default is 100 \n --file-timeout-ms=<milliseconds> \tAbort the validation of a " +
+            "definition taking longer than the time \n --max-file-mb=<megabytes> \tAbort the validation of a " +
+            "definition larger than the size \n --max-depth=<levels> \tAbort the validation of a definition nested " +
+            "deeper than the levels \n --max-resolved-schemas=<count> \tAbort the validation of a definition " +
+            "resolving more schemas than the count \n --batch \tValidate the definitions read from the standard " +
+            "input and write a JSON result line per definition to the standard output \n " +
+            "--batch-format=<ndjson|frames> \tFormat of the definitions read in batch mode. Default is ndjson \n " +
+            "--ordered \tWrite the batch results in the order of the definitions \n --shard-index=<index> \tIndex of " +
+            "the shard of the location validated by this process, from 0 \n --shard-count=<count> \tNumber of shards " +
+            "the location is split into \n --shard-output=<file> \tFile to write the result of the shard to. Default " +
+            "is shard-<index>-of-<count>.json \n merge <file>... \tMerge the result files of all the shards into the " +
+            "summary of the location";
+    private static final ObjectMapper JSON_MAPPER = ObjectMapperFactory.createJson();
+    private static final ObjectMapper YAML_MAPPER = ObjectMapperFactory.createYaml();
+    static final ValidationSummary summary = new ValidationSummary();
+    static volatile ValidationResultCache resultCache;
+    static volatile ValidationMetrics metrics;
+    static volatile ExternalRefCache externalRefCache =
+            new ExternalRefCache(ToolConfiguration.DEFAULT_REF_CACHE_MB * 1024L * 1024L, null);
+    static volatile InFlightByteBudget inFlightByteBudget =
+            new InFlightByteBudget(ToolConfiguration.getDefaultMaxInFlightBytes());
+    static volatile ResourceLimits resourceLimits = ResourceLimits.NONE;
+    // Selects the files of the location validated by this process, or null if the location is not sharded
+    static volatile ShardSelector shardSelector;
+    private static ShardResultFile shardResult;
 
     /**
      * @param args 2 parameters are supported when executing the tool.
-     *             Param 1: Direct path to the swagger/openAPI file or the folder location
+     *             Param 1: Direct path to the swagger/openAPI file, the folder location or a zip, jar, tar or
+     *             tar.gz archive of swagger files
      *             Ex: location:/Users/xyz/Downloads/swagger-definition/invalid-swagger-definitions
      *             Param 2: validationLevel - Default will be 2
      *             If the validationLevel is 0, swagger validation errors won't be returned only verify whether the
      *             swagger definition is returned after the validation.
      *             If the validationLevel is 1, swagger will be validated as per the same behaviour as API Manager 4.0.0
      *             If the validationLevel is 2, All the validation errors will be returned
+     *             Options: --threads=count to validate the files of a folder in parallel and --virtual-threads to run
+     *             the validations on virtual threads. --cache, --no-cache, --clear-cache, --cache-dir=directory
+     *             and --cache-size=entries to control the result cache. --server, --host, --port, --queue-size and
+     *             --max-request-mb=megabytes to run as a validation server. --max-in-flight-mb=megabytes to limit the
+     *             size of the swagger files held in memory at once. --metrics, --slowest=count and --metrics-file=file
+     *             to report the time taken by each validation phase. --no-ref-cache, --ref-cache-mb=megabytes and
+     *             --ref-mirror=directory to control the cache of the external $refs. --watch and
+     *             --watch-debounce-ms=milliseconds to keep validating the changed files of the location.
+     *             --file-timeout-ms=milliseconds, --max-file-mb=megabytes, --max-depth=levels and
+     *             --max-resolved-schemas=count to abort the validation of pathological definitions. --batch,
+     *             --batch-format=ndjson|frames and --ordered to validate the definitions read from the standard input.
+     *             --shard-index=index, --shard-count=count and --shard-output=file to validate a shard of the location,
+     *             and "merge file..." to merge the results of the shards
      */
     public static void main(String[] args) {
-        if (args.length == 1 || args.length == 2) {
-            String swaggerContent = args[0];
-            int validationLevel = 2;
-            if (args.length == 2) {
-                validationLevel = Integer.parseInt(args[1]);
+        ToolConfiguration configuration;
+        try {
+            configuration = ToolConfiguration.parse(args);
+        } catch (IllegalArgumentException e) {
+            log.error(e.getMessage());
+            log.info(USAGE);
+            return;
+        }
+        if (configuration.isMergeMode()) {
+            mergeShardResults(configuration);
+            return;
+        }
+        String swaggerContent = configuration.getInput();
+        int validationLevel = configuration.getValidationLevel();
+        inFlightByteBudget = new InFlightByteBudget(configuration.getMaxInFlightBytes());
+        resourceLimits = configuration.getResourceLimits();
+        externalRefCache = configuration.isRefCacheEnabled() ? new ExternalRefCache(configuration.getRefCacheBytes(),
+                configuration.getRefMirrorDirectory()) : null;
+        if (configuration.isMetricsEnabled()) {
+            metrics = new ValidationMetrics(configuration.getSlowestDefinitionCount());
+        }
+        if (configuration.isCacheEnabled()) {
+            resultCache = ValidationResultCache.load(configuration.getCacheDirectory(), configuration.getCacheSize(),
+                    configuration.isClearCache());
+        }
+        if (configuration.isServerMode()) {
+            startValidationServer(configuration);
+            return;
+        }
+        if (configuration.isWatchMode()) {
+            watchLocation(configuration);
+            return;
+        }
+        boolean batchCompleted = true;
+        if (configuration.isBatchMode()) {
+            batchCompleted = validateBatch(configuration);
+        } else if (configuration.isSharded()) {
+            validateShard(configuration);
+        } else if (swaggerContent.startsWith("location:")) {
+            try (ValidationExecutor executor = ValidationExecutor.create(configuration.getThreadCount(),
+                    configuration.isVirtualThreads())) {
+                validateSwaggerFromLocation(swaggerContent.replace("location:", ""), validationLevel, executor);
+            }
+        } else {
+            validateSwaggerContent(swaggerContent, validationLevel);
+        }
+        log.info(summary.toString());
+        if (configuration.isSharded()) {
+            writeShardResult(configuration);
+        }
+        if (metrics != null) {
+            reportMetrics(configuration);
+        }
+        if (resultCache != null) {
+            resultCache.save();
+            log.info("Result Cache --- Hits: " + resultCache.getHitCount() + ". Misses: "
+                    + resultCache.getMissCount());
+        }
+        if (externalRefCache != null && externalRefCache.getMissCount() > 0) {
+            log.info("External Ref Cache --- Hits: " + externalRefCache.getHitCount() + ". Misses: "
+                    + externalRefCache.getMissCount());
+        }
+        if (!batchCompleted) {
+            // Lets the caller of the batch notice the definitions without a result
+            System.exit(1);
+        }
+    }
+
+    private static void reportMetrics(ToolConfiguration configuration) {
+        metrics.report(log);
+        Path metricsFile = configuration.getMetricsFile();
+        if (metricsFile != null) {
+            try {
+                metrics.write(metricsFile);
+            } catch (IOException e) {
+                log.error("Error occurred while writing the validation metrics to " + metricsFile, e);
+            }
+        }
+    }
+
+    /**
+     * Validates the files of the location and keeps validating the files created or modified afterwards, until the
+     * process is terminated.
+     *
+     * @param configuration tool configuration
+     */
+    static void watchLocation(ToolConfiguration configuration) {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (resultCache != null) {
+                resultCache.save();
             }
-            if (swaggerContent.startsWith("location:")) {
-                validateSwaggerFromLocation(swaggerContent.replace("location:", ""), validationLevel);
+        }));
+        try (ValidationExecutor executor = ValidationExecutor.create(configuration.getThreadCount(),
+                configuration.isVirtualThreads())) {
+            new ValidationWatcher(Paths.get(configuration.getInput().replace("location:", "")),
+                    configuration.getValidationLevel(), executor, configuration.getWatchDebounceMillis()).run();
+        } catch (IOException e) {
+            log.error("Error occurred while watching the location " + configuration.getInput(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Validates the files of the location selected for the shard of this process, recording the result of each file
+     * for the partial result file of the shard.
+     *
+     * @param configuration tool configuration
+     */
+    static void validateShard(ToolConfiguration configuration) {
+        String location = configuration.getInput().replace("location:", "");
+        shardSelector = new ShardSelector(location, configuration.getShardIndex(), configuration.getShardCount());
+        shardResult = new ShardResultFile(shardSelector, location, configuration.getValidationLevel(),
+                configuration.getShardIndex(), configuration.getShardCount());
+        try (ValidationExecutor executor = ValidationExecutor.create(configuration.getThreadCount(),
+                configuration.isVirtualThreads())) {
+            validateSwaggerFromLocation(location, configuration.getValidationLevel(), executor, shardResult::add);
+        }
+    }
+
+    private static void writeShardResult(ToolConfiguration configuration) {
+        try {
+            shardResult.write(configuration.getShardOutput(), summary);
+        } catch (IOException e) {
+            log.error("Error occurred while writing the shard result to " + configuration.getShardOutput(), e);
+        }
+    }
+
+    /**
+     * Merges the partial result files of all the shards of a location and writes the summary of the location, which
+     * is the same as the summary of validating the location in a single process.
+     *
+     * @param configuration tool configuration
+     */
+    static void mergeShardResults(ToolConfiguration configuration) {
+        try {
+            ShardResultFile.merge(configuration.getMergeFiles(), summary);
+        } catch (IOException e) {
+            log.error("Error occurred while merging the shard results: " + e.getMessage());
+            return;
+        }
+        log.info(summary.toString());
+    }
+
+    /**
+     * Validates the definitions read from the standard input and writes a JSON result line per definition to the
+     * standard output. The log lines are written to the standard error, so the standard output has only the results.
+     * The tool jar starts from {@link SwaggerToolLauncher}, which moves the standard output before the logging framework
+     * is initialised.
+     *
+     * @param configuration tool configuration
+     * @return whether all the definitions were read and validated, without writing an error line
+     */
+    static boolean validateBatch(ToolConfiguration configuration) {
+        OutputStream resultOutput = new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 64 * 1024);
+        // The console log appender follows System.out, hence the log lines are moved to the standard error when the tool
+        // is not started from the launcher
+        System.setOut(System.err);
+        boolean completed = false;
+        try (ValidationExecutor executor = ValidationExecutor.create(configuration.getThreadCount(),
+                configuration.isVirtualThreads())) {
+            ValidationPipeline pipeline = new ValidationPipeline(System.in, resultOutput,
+                    configuration.getValidationLevel(), executor, configuration.getThreadCount(),
+                    configuration.isOrderedOutput());
+            if ("frames".equals(configuration.getBatchFormat())) {
+                pipeline.runFrames();
             } else {
-                validateSwaggerContent(swaggerContent, validationLevel);
+                pipeline.runRecords();
             }
-            log.info("Summery --- Total Files Processed: " + totalFileCount + ". Total Successful Files Count "
-                    + validationSuccessFileCount + ". Total Failed Files Count: " + validationFailedFileCount + ". " +
-                    "Total Malformed Swagger File Count: " + totalMalformedSwaggerFiles);
-        } else {
-            log.info("\nUsage: \t java -jar apim-swagger-validator.jar " +
-                    "[<File uri> | <Directory uri> | <Swagger String>] [0 | 1 | 2] \n 0 \tValidation disabled. " +
-                    "Only verify whether the swagger/openAPI definition is returned by the validator. " +
-                    "\n 1 \tValidate as in WSO2 API Manager 4.0.0 and verify whether the swagger/openAPI " +
-                    "definition is returned by the validator. \n 2 \tFully validate the definitions and verify " +
-                    "whether the swagger/openAPI definition is returned by the validator");
+            completed = pipeline.getErrorLineCount() == 0;
+            if (!completed) {
+                log.error(pipeline.getErrorLineCount() + " of the definitions could not be read or validated");
+            }
+        } catch (IOException e) {
+            log.error("Error occurred while reading the swagger definitions from the standard input", e);
+        }
+        try {
+            resultOutput.flush();
+        } catch (IOException e) {
+            log.error("Error occurred while writing the validation results", e);
+            completed = false;
         }
+        return completed;
+    }
+
+    /**
+     * Starts the validation server, which keeps running until the process is terminated.
+     *
+     * @param configuration tool configuration
+     */
+    static void startValidationServer(ToolConfiguration configuration) {
+        ValidationServer server;
+        try {
+            server = new ValidationServer(configuration.getServerHost(), configuration.getServerPort(),
+                    configuration.getThreadCount(), configuration.getQueueSize(),
+                    configuration.getValidationLevel(), configuration.getMaxRequestBytes());
+        } catch (IOException e) {
+            log.error("Error occurred while starting the validation server on " + configuration.getServerHost()
+                    + ":" + configuration.getServerPort(), e);
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            if (resultCache != null) {
+                resultCache.save();
+            }
+        }));
+        server.start();
     }
 
     /**
      * @param url             url for the swagger file
      * @param validationLevel swagger validation level[0,1,2]
+     * @param executor        executor to run the validation of each swagger file
      */
-    static void validateSwaggerFromLocation(String url, int validationLevel) {
+    static void validateSwaggerFromLocation(String url, int validationLevel, ValidationExecutor executor) {
+        validateSwaggerFromLocation(url, validationLevel, executor, (path, result) -> {
+        });
+    }
+
+    /**
+     * @param url             url for the swagger file
+     * @param validationLevel swagger validation level[0,1,2]
+     * @param executor        executor to run the validation of each swagger file
+     * @param resultConsumer  receives the validation result of each swagger file
+     */
+    static void validateSwaggerFromLocation(String url, int validationLevel, ValidationExecutor executor,
+                                            BiConsumer<Path, ValidationResult> resultConsumer) {
         try {
             Path swaggerFilePath = Paths.get(url);
-            if (Files.isRegularFile(swaggerFilePath)) {
-                totalFileCount++;
-                String swaggerFileContent = new String(Files.readAllBytes(swaggerFilePath), StandardCharsets.UTF_8);
-                log.info("Start Parsing Swagger file " + swaggerFilePath.getFileName().toString());
-                validateSwaggerContent(swaggerFileContent, validationLevel);
+            if (Files.isRegularFile(swaggerFilePath) && SwaggerArchive.isArchive(swaggerFilePath)) {
+                validateSwaggerArchive(swaggerFilePath, validationLevel, executor, resultConsumer);
+            } else if (Files.isRegularFile(swaggerFilePath)) {
+                ShardSelector selector = shardSelector;
+                if (selector != null && !selector.isSelected(swaggerFilePath)) {
+                    // The file is validated by another shard
+                    return;
+                }
+                executor.execute(() -> resultConsumer.accept(swaggerFilePath,
+                        validateSwaggerFile(swaggerFilePath, validationLevel)));
             } else if (Files.isDirectory(swaggerFilePath)) {
                 try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(swaggerFilePath)) {
                     directoryStream.forEach((path) -> {
-                        validateSwaggerFromLocation(path.toString(), validationLevel);
+                        validateSwaggerFromLocation(path.toString(), validationLevel, executor, resultConsumer);
                     });
                 }
             } else {
@@ -117,112 +403,464 @@ public class SwaggerTool {
         }
     }
 
+    /**
+     * Validates the entries of a zip, jar or tar archive without extracting it. The archive is read on the calling
+     * thread, while the entries are validated by the executor.
+     *
+     * @param archivePath     path of the archive
+     * @param validationLevel swagger validation level[0,1,2]
+     * @param executor        executor to run the validation of each entry
+     * @param resultConsumer  receives the validation result of each entry, with the entry path resolved against the
+     *                        archive path
+     * @throws IOException if the archive cannot be read or is corrupted
+     */
+    static void validateSwaggerArchive(Path archivePath, int validationLevel, ValidationExecutor executor,
+                                       BiConsumer<Path, ValidationResult> resultConsumer) throws IOException {
+        ShardSelector selector = shardSelector;
+        SwaggerArchive.forEachEntry(archivePath, inFlightByteBudget,
+                entryPath -> selector == null || selector.isSelected(archivePath.resolve(entryPath)),
+                (entryPath, content) -> {
+                    try {
+                        executor.execute(() -> resultConsumer.accept(archivePath.resolve(entryPath),
+                                validateSwaggerEntry(archivePath, entryPath, content, validationLevel)));
+                    } catch (RuntimeException e) {
+                        content.close();
+                        throw e;
+                    }
+                });
+    }
+
+    /**
+     * @param archivePath     path of the archive
+     * @param entryPath       path of the swagger file in the archive
+     * @param content         content of the swagger file, which is closed once it is validated
+     * @param validationLevel swagger validation level[0,1,2]
+     * @return validation result of the swagger file
+     */
+    static ValidationResult validateSwaggerEntry(Path archivePath, String entryPath, SwaggerFileContent content,
+                                                 int validationLevel) {
+        long startTime = System.nanoTime();
+        ValidationResult result = new ValidationResult();
+        result.totalFileCount++;
+        ByteBuffer swaggerContent = content.getContent();
+        long swaggerFileSize = swaggerContent.remaining();
+        try {
+            result.info("Start Parsing Swagger file " + entryPath);
+            validateSwaggerFileContent(swaggerContent, validationLevel, result);
+        } finally {
+            content.close();
+        }
+        recordMetrics(archivePath + "!/" + entryPath, swaggerFileSize, startTime, result);
+        result.publish(log, summary);
+        return result;
+    }
+
+    /**
+     * @param swaggerFilePath path of the swagger file
+     * @param validationLevel swagger validation level[0,1,2]
+     * @return validation result of the swagger file
+     */
+    static ValidationResult validateSwaggerFile(Path swaggerFilePath, int validationLevel) {
+        long startTime = System.nanoTime();
+        long swaggerFileSize = 0;
+        ValidationResult result = new ValidationResult();
+        result.totalFileCount++;
+        // The file is parsed straight from its bytes, without decoding it to a string first
+        try (SwaggerFileContent swaggerFileContent = SwaggerFileContent.open(swaggerFilePath, inFlightByteBudget)) {
+            result.info("Start Parsing Swagger file " + swaggerFilePath.getFileName().toString());
+            ByteBuffer content = swaggerFileContent.getContent();
+            swaggerFileSize = content.remaining();
+            validateSwaggerFileContent(content, validationLevel, result);
+        } catch (IOException e) {
+            result.error("Error occurred while reading the swagger file from the give location " + swaggerFilePath
+                    + ", hence the file will not be validated. ", e);
+        }
+        recordMetrics(swaggerFilePath.toString(), swaggerFileSize, startTime, result);
+        result.publish(log, summary);
+        return result;
+    }
+
+    /**
+     * Validates the content of a swagger file, such as a file of a location, a definition read in batch mode or the
+     * body of a server request. A failure of the parsers, such as a definition they do not expect, is recorded as a
+     * failed file, so the file is counted in the summary the same way in every mode and on every thread.
+     *
+     * @param swaggerFileContent UTF-8 encoded swagger file content to be validated
+     * @param validationLevel    validation level [0,1,2]
+     * @param result             result to record the validation outcome of the file
+     * @return whether the validation completed, or false if the parsers failed and the file is counted as failed
+     */
+    static boolean validateSwaggerFileContent(ByteBuffer swaggerFileContent, int validationLevel,
+                                              ValidationResult result) {
+        try {
+            validateSwaggerContent(swaggerFileContent, validationLevel, result);
+            return true;
+        } catch (RuntimeException | Error e) {
+            result.error("Error occurred while validating the swagger file, hence the file is counted as failed. ", e);
+            result.validationSuccessFileCount = 0;
+            result.validationFailedFileCount = 1;
+            return false;
+        }
+    }
+
     /**
      * @param swaggerFileContent swagger file content to be validated
      * @param validationLevel    validation level [0,1,2]
      */
     public static void validateSwaggerContent(String swaggerFileContent, int validationLevel) {
-        List<Object> swaggerTypeAndName = getSwaggerVersion(swaggerFileContent);
+        long startTime = System.nanoTime();
+        ValidationResult result = new ValidationResult();
+        validateSwaggerContent(swaggerFileContent, validationLevel, result);
+        recordMetrics("<inline definition>", swaggerFileContent.getBytes(StandardCharsets.UTF_8).length, startTime,
+                result);
+        result.publish(log, summary);
+    }
+
+    static void recordMetrics(String definitionName, long definitionSize, long startTime,
+                                      ValidationResult result) {
+        ValidationMetrics currentMetrics = metrics;
+        if (currentMetrics != null) {
+            currentMetrics.record(definitionName, definitionSize, System.nanoTime() - startTime, result.timings);
+        }
+    }
+
+    /**
+     * @param swaggerFileContent swagger file content to be validated
+     * @param validationLevel    validation level [0,1,2]
+     * @param result             result to record the validation outcome of the definition
+     */
+    static void validateSwaggerContent(String swaggerFileContent, int validationLevel, ValidationResult result) {
+        validateSwaggerContent(ByteBuffer.wrap(swaggerFileContent.getBytes(StandardCharsets.UTF_8)), validationLevel,
+                result);
+    }
+
+    /**
+     * @param swaggerFileContent UTF-8 encoded swagger file content to be validated
+     * @param validationLevel    validation level [0,1,2]
+     * @param result             result to record the validation outcome of the definition
+     */
+    static void validateSwaggerContent(ByteBuffer swaggerFileContent, int validationLevel, ValidationResult result) {
+        ValidationResultCache cache = resultCache;
+        if (cache == null) {
+            validateSwaggerDefinition(swaggerFileContent, validationLevel, result);
+            return;
+        }
+        String cacheKey = cache.getKey(swaggerFileContent, validationLevel, resourceLimits);
+        ValidationResult cachedResult = cache.get(cacheKey);
+        if (cachedResult != null) {
+            result.append(cachedResult);
+            return;
+        }
+        ValidationResult definitionResult = new ValidationResult();
+        validateSwaggerDefinition(swaggerFileContent, validationLevel, definitionResult);
+        if (definitionResult.isCacheable()) {
+            cache.put(cacheKey, definitionResult);
+        }
+        result.append(definitionResult);
+        result.timings.add(definitionResult.timings);
+    }
+
+    static void validateSwaggerDefinition(String swaggerFileContent, int validationLevel, ValidationResult result) {
+        validateWithinLimits(result, definitionResult -> {
+            ResourceLimits.Guard guard = definitionResult.guard;
+            if (guard != null) {
+                guard.checkInputSize(swaggerFileContent.getBytes(StandardCharsets.UTF_8).length);
+                if (resourceLimits.isNestingDepthLimited()) {
+                    try {
+                        guard.checkNestingDepth(getMapper(swaggerFileContent).getFactory()
+                                .createParser(swaggerFileContent));
+                    } catch (IOException e) {
+                        // The definition is not well formed, which is reported when it is parsed
+                    }
+                }
+            }
+            definitionResult.timings.start(ValidationPhase.DETECT_VERSION);
+            validateSwaggerDefinition(readSwaggerTree(swaggerFileContent, definitionResult),
+                    getMapper(swaggerFileContent) == YAML_MAPPER ? () -> swaggerFileContent : null, validationLevel,
+                    definitionResult);
+        });
+    }
+
+    static void validateSwaggerDefinition(ByteBuffer swaggerFileContent, int validationLevel,
+                                          ValidationResult result) {
+        validateWithinLimits(result, definitionResult -> {
+            ResourceLimits.Guard guard = definitionResult.guard;
+            if (guard != null) {
+                guard.checkInputSize(swaggerFileContent.remaining());
+                if (resourceLimits.isNestingDepthLimited()) {
+                    try {
+                        guard.checkNestingDepth(getMapper(swaggerFileContent).getFactory()
+                                .createParser(new ByteBufferInputStream(swaggerFileContent.duplicate())));
+                    } catch (IOException e) {
+                        // The definition is not well formed, which is reported when it is parsed
+                    }
+                }
+            }
+            definitionResult.timings.start(ValidationPhase.DETECT_VERSION);
+            validateSwaggerDefinition(readSwaggerTree(swaggerFileContent, definitionResult),
+                    getMapper(swaggerFileContent) == YAML_MAPPER
+                            ? () -> StandardCharsets.UTF_8.decode(swaggerFileContent.duplicate()).toString() : null,
+                    validationLevel, definitionResult);
+        });
+    }
+
+    /**
+     * Runs the validation of a definition within the configured resource limits. The definition is validated into a
+     * separate result, so a definition exceeding a limit is reported only as exceeding the limit, without the partial
+     * output of the aborted validation.
+     *
+     * @param result     result to record the validation outcome of the definition
+     * @param validation validation of the definition, recording to the given result
+     */
+    private static void validateWithinLimits(ValidationResult result, Consumer<ValidationResult> validation) {
+        ResourceLimits limits = resourceLimits;
+        if (!limits.isEnabled()) {
+            validation.accept(result);
+            return;
+        }
+        ValidationResult definitionResult = new ValidationResult();
+        definitionResult.guard = limits.newGuard();
+        String limitExceededMessage;
+        try {
+            validation.accept(definitionResult);
+            result.append(definitionResult);
+            result.timings.add(definitionResult.timings);
+            return;
+        } catch (ResourceLimitExceededException e) {
+            limitExceededMessage = e.getMessage();
+        } catch (StackOverflowError e) {
+            // The parsers recurse into the nested objects and the schemas, so the stack is a resource limit as well
+            limitExceededMessage = "Definition nesting exceeds the thread stack size";
+        }
+        definitionResult.timings.stop();
+        result.timings.add(definitionResult.timings);
+        result.error("Resource limit exceeded, hence the validation of the definition is aborted: "
+                + limitExceededMessage);
+        result.validationFailedFileCount++;
+        result.resourceLimitExceededFileCount++;
+        // The outcome depends on the configured limits, hence it is not cached
+        result.cacheable = false;
+    }
+
+    private static void checkTimeout(ValidationResult result) {
+        if (result.guard != null) {
+            result.guard.checkTimeout();
+        }
+    }
+
+    /**
+     * @param rootNode        root node of the definition
+     * @param yamlDefinition  supplier of the definition when it is in YAML format, or null when it is in JSON format
+     * @param validationLevel validation level [0,1,2]
+     * @param result          result to record the validation outcome of the definition
+     */
+    private static void validateSwaggerDefinition(ObjectNode rootNode, Supplier<String> yamlDefinition,
+                                                  int validationLevel, ValidationResult result) {
+        // The definition is parsed once and the same tree is used for version detection and both the parsers, apart
+        // from the Swagger 2 parser of a YAML definition
+        if (rootNode != null && hasExternalReference(rootNode)) {
+            // Referenced files may change independently of the definition, hence the result is not cached
+            result.cacheable = false;
+        }
+        List<Object> swaggerTypeAndName = getSwaggerVersion(rootNode, result);
+        // The version detection phase is started by the callers before the tree is parsed
+        result.timings.stop();
 
         if (validationLevel == 1) {
             if (swaggerTypeAndName.get(0).equals(Constants.SwaggerVersion.ERROR) && swaggerTypeAndName.size() == 1) {
                 return;
             } else {
-                log.info("---------------- Parsing Started SwaggerName \"" + swaggerTypeAndName.get(1).toString() +
+                result.info("---------------- Parsing Started SwaggerName \"" + swaggerTypeAndName.get(1).toString() +
                         "\" ----------------");
-                boolean isOpenAPIMissing = swagger3Validator(swaggerFileContent, validationLevel);
+                boolean isOpenAPIMissing = swagger3Validator(rootNode, validationLevel, result);
                 boolean isSwaggerMissing;
                 if (isOpenAPIMissing) {
-                    isSwaggerMissing = swagger2Validator(swaggerFileContent, validationLevel);
+                    isSwaggerMissing = swagger2Validator(rootNode, yamlDefinition, validationLevel, result);
                     if (isSwaggerMissing) {
-                        log.error("Invalid OpenAPI, Error Code: " + Constants.OPENAPI_PARSE_EXCEPTION_ERROR_CODE +
+                        result.error("Invalid OpenAPI, Error Code: " + Constants.OPENAPI_PARSE_EXCEPTION_ERROR_CODE +
                                 ", Error: " + Constants.OPENAPI_PARSE_EXCEPTION_ERROR_MESSAGE
                                 + ", Swagger Error: " + Constants.SWAGGER_OR_OPENAPI_IS_MISSING_MSG);
                     }
                 }
-                log.info("---------------- Parsing Complete SwaggerName \"" + swaggerTypeAndName.get(1).toString() +
+                result.info("---------------- Parsing Complete SwaggerName \"" + swaggerTypeAndName.get(1).toString() +
                         "\" ---------------- \n");
             }
         } else {
             if (swaggerTypeAndName.get(0).equals(Constants.SwaggerVersion.ERROR)) {
                 if (swaggerTypeAndName.size() == 2) {
-                    log.info("---------------- Parsing Started SwaggerName \"" + swaggerTypeAndName.get(1).toString() +
+                    result.info("---------------- Parsing Started SwaggerName \"" + swaggerTypeAndName.get(1).toString() +
                             "\" ----------------");
-                    boolean isOpenAPIMissing = swagger3Validator(swaggerFileContent, validationLevel);
+                    boolean isOpenAPIMissing = swagger3Validator(rootNode, validationLevel, result);
                     boolean isSwaggerMissing;
                     if (isOpenAPIMissing) {
-                        isSwaggerMissing = swagger2Validator(swaggerFileContent, validationLevel);
+                        isSwaggerMissing = swagger2Validator(rootNode, yamlDefinition, validationLevel, result);
                         if (isSwaggerMissing) {
-                            log.error("Invalid OpenAPI, Error Code: " + Constants.OPENAPI_PARSE_EXCEPTION_ERROR_CODE +
+                            result.error("Invalid OpenAPI, Error Code: " + Constants.OPENAPI_PARSE_EXCEPTION_ERROR_CODE +
                                     ", Error: " + Constants.OPENAPI_PARSE_EXCEPTION_ERROR_MESSAGE
                                     + ", Swagger Error: " + Constants.SWAGGER_OR_OPENAPI_IS_MISSING_MSG);
                         }
                     }
-                    log.info("---------------- Parsing Complete SwaggerName \"" + swaggerTypeAndName.get(1).toString() +
+                    result.info("---------------- Parsing Complete SwaggerName \"" + swaggerTypeAndName.get(1).toString() +
                             "\" ---------------- \n");
                 }
                 return;
             }
             if (swaggerTypeAndName.get(0).equals(Constants.SwaggerVersion.SWAGGER)) {
-                log.info("---------------- Parsing Started SwaggerName \"" + swaggerTypeAndName.get(1).toString() +
+                result.info("---------------- Parsing Started SwaggerName \"" + swaggerTypeAndName.get(1).toString() +
                         "\" ----------------");
-                swagger2Validator(swaggerFileContent, validationLevel);
-                log.info("---------------- Parsing Complete SwaggerName \"" + swaggerTypeAndName.get(1).toString() +
+                swagger2Validator(rootNode, yamlDefinition, validationLevel, result);
+                result.info("---------------- Parsing Complete SwaggerName \"" + swaggerTypeAndName.get(1).toString() +
                         "\" ---------------- \n");
             } else if (swaggerTypeAndName.get(0).equals(Constants.SwaggerVersion.OPEN_API)) {
-                log.info("---------------- Parsing Started openApiName \"" + swaggerTypeAndName.get(1).toString() +
+                result.info("---------------- Parsing Started openApiName \"" + swaggerTypeAndName.get(1).toString() +
                         "\" ----------------");
-                boolean isOpenAPIMissing = swagger3Validator(swaggerFileContent, validationLevel);
+                boolean isOpenAPIMissing = swagger3Validator(rootNode, validationLevel, result);
                 if (isOpenAPIMissing) {
-                    swagger2Validator(swaggerFileContent, validationLevel);
+                    swagger2Validator(rootNode, yamlDefinition, validationLevel, result);
                 }
-                log.info("---------------- Parsing Complete openApiName \"" + swaggerTypeAndName.get(1).toString() +
+                result.info("---------------- Parsing Complete openApiName \"" + swaggerTypeAndName.get(1).toString() +
                         "\" ----------------\n");
             }
         }
     }
 
     public static List<Object> getSwaggerVersion(String apiDefinition) {
-        List<Object> swaggerTypeAndName = new ArrayList<>(2);
-        ObjectMapper mapper;
+        ValidationResult result = new ValidationResult();
+        List<Object> swaggerTypeAndName = getSwaggerVersion(apiDefinition, result);
+        result.publish(log, summary);
+        return swaggerTypeAndName;
+    }
+
+    static List<Object> getSwaggerVersion(String apiDefinition, ValidationResult result) {
+        SwaggerVersionSniffer sniffer = SwaggerVersionSniffer.sniff(apiDefinition, getMapper(apiDefinition));
+        if (sniffer == null) {
+            // Definitions which are not well formed are parsed completely to report the same errors as validation
+            return getSwaggerVersion(readSwaggerTree(apiDefinition, result), result);
+        }
+        return getSwaggerVersion(sniffer.getOpenAPIVersion(), sniffer.isSwaggerVersionPresent(), sniffer.getTitle(),
+                result);
+    }
+
+    private static ObjectMapper getMapper(String apiDefinition) {
         if (apiDefinition.trim().startsWith("{")) {
-            mapper = ObjectMapperFactory.createJson();
-        } else {
-            mapper = ObjectMapperFactory.createYaml();
+            return JSON_MAPPER;
         }
-        JsonNode rootNode;
-        ObjectNode node;
+        return YAML_MAPPER;
+    }
+
+    private static ObjectMapper getMapper(ByteBuffer apiDefinition) {
+        // Same as trimming the definition, since all the characters up to space are single bytes in UTF-8
+        for (int i = apiDefinition.position(); i < apiDefinition.limit(); i++) {
+            int character = apiDefinition.get(i) & 0xFF;
+            if (character > ' ') {
+                return character == '{' ? JSON_MAPPER : YAML_MAPPER;
+            }
+        }
+        return YAML_MAPPER;
+    }
+
+    /**
+     * @param apiDefinition swagger/openAPI definition in JSON or YAML format
+     * @param result        result to record the error when the definition cannot be parsed
+     * @return root node of the definition or null if it is not a valid JSON/YAML object
+     */
+    static ObjectNode readSwaggerTree(String apiDefinition, ValidationResult result) {
+        return readSwaggerTree(apiDefinition.getBytes(StandardCharsets.UTF_8), getMapper(apiDefinition), result);
+    }
+
+    private static ObjectNode readSwaggerTree(byte[] apiDefinition, ObjectMapper mapper, ValidationResult result) {
         try {
-            rootNode = mapper.readTree(apiDefinition.getBytes());
-            node = (ObjectNode) rootNode;
+            return (ObjectNode) mapper.readTree(apiDefinition);
         } catch (Exception e) {
-            log.error("Error occurred while parsing OAS definition. Verify the provided definition format: " + e.getMessage());
+            result.error("Error occurred while parsing OAS definition. Verify the provided definition format: " + e.getMessage());
+            result.validationFailedFileCount++;
+            return null;
+        }
+    }
+
+    /**
+     * @param apiDefinition UTF-8 encoded swagger/openAPI definition in JSON or YAML format
+     * @param result        result to record the error when the definition cannot be parsed
+     * @return root node of the definition or null if it is not a valid JSON/YAML object
+     */
+    static ObjectNode readSwaggerTree(ByteBuffer apiDefinition, ValidationResult result) {
+        try {
+            return (ObjectNode) getMapper(apiDefinition)
+                    .readTree(new ByteBufferInputStream(apiDefinition.duplicate()));
+        } catch (Exception e) {
+            if (apiDefinition.remaining() < SwaggerFileContent.MAPPING_THRESHOLD) {
+                // Parsed again from a copy of the bytes, so the error message shows the erroneous content as before
+                byte[] definitionBytes = new byte[apiDefinition.remaining()];
+                apiDefinition.duplicate().get(definitionBytes);
+                return readSwaggerTree(definitionBytes, getMapper(apiDefinition), result);
+            }
+            result.error("Error occurred while parsing OAS definition. Verify the provided definition format: " + e.getMessage());
+            result.validationFailedFileCount++;
+            return null;
+        }
+    }
+
+    static List<Object> getSwaggerVersion(ObjectNode node, ValidationResult result) {
+        if (node == null) {
+            List<Object> swaggerTypeAndName = new ArrayList<>(1);
             swaggerTypeAndName.add(Constants.SwaggerVersion.ERROR);
-            validationFailedFileCount++;
             return swaggerTypeAndName;
         }
         String name = getSwaggerFileName(node.get("info"));
         JsonNode openapi = node.get("openapi");
-        if (openapi != null && openapi.asText().startsWith("3.")) {
+        return getSwaggerVersion(openapi != null ? openapi.asText() : null, node.get("swagger") != null, name,
+                result);
+    }
 
+    /**
+     * @param openAPIVersion        text of the openapi field, or null if the field is not present
+     * @param swaggerVersionPresent whether the swagger field is present
+     * @param name                  title of the definition
+     * @param result                result to record the error when the version is not valid
+     * @return swagger version and the name of the definition
+     */
+    private static List<Object> getSwaggerVersion(String openAPIVersion, boolean swaggerVersionPresent, String name,
+                                                  ValidationResult result) {
+        List<Object> swaggerTypeAndName = new ArrayList<>(2);
+        if (openAPIVersion != null && openAPIVersion.startsWith("3.")) {
             swaggerTypeAndName.add(Constants.SwaggerVersion.OPEN_API);
             swaggerTypeAndName.add(name);
             return swaggerTypeAndName;
         }
-        JsonNode swagger = node.get("swagger");
-        Swagger20Parser parser1 = new Swagger20Parser();
-        if (swagger != null) {
+        if (swaggerVersionPresent) {
             swaggerTypeAndName.add(Constants.SwaggerVersion.SWAGGER);
             swaggerTypeAndName.add(name);
             return swaggerTypeAndName;
         }
 
-        log.error("Invalid OAS definition provided.");
+        result.error("Invalid OAS definition provided.");
         swaggerTypeAndName.add(Constants.SwaggerVersion.ERROR);
         swaggerTypeAndName.add(name);
         return swaggerTypeAndName;
     }
 
+    /**
+     * @param rootNode root node of the definition
+     * @return whether the definition has a $ref pointing outside of the definition
+     */
+    static boolean hasExternalReference(JsonNode rootNode) {
+        Deque<JsonNode> pendingNodes = new ArrayDeque<>();
+        pendingNodes.push(rootNode);
+        while (!pendingNodes.isEmpty()) {
+            JsonNode node = pendingNodes.pop();
+            JsonNode ref = node.get("$ref");
+            if (node.isObject() && ref != null && ref.isTextual() && !ref.asText().startsWith("#")) {
+                return true;
+            }
+            for (JsonNode child : node) {
+                if (child.isContainerNode()) {
+                    pendingNodes.push(child);
+                }
+            }
+        }
+        return false;
+    }
+
     public static String getSwaggerFileName(JsonNode node) {
         if (node != null) {
             return node.get("title").asText();
@@ -230,14 +868,91 @@ public class SwaggerTool {
         return "";
     }
 
+    /**
+     * The Swagger 2 parser reads YAML definitions with SnakeYAML, which expands the merge keys (<<) unlike the YAML
+     * tree used for version detection, hence a YAML definition is read again for the Swagger 2 parser.
+     *
+     * @param rootNode        root node of the definition
+     * @param yamlDefinition  supplier of the definition when it is in YAML format, or null when it is in JSON format
+     * @param validationLevel validation level [0,1,2]
+     * @param result          result to record the validation outcome of the definition
+     * @return whether the swagger attribute is missing in the definition
+     */
+    private static boolean swagger2Validator(JsonNode rootNode, Supplier<String> yamlDefinition, int validationLevel,
+                                             ValidationResult result) {
+        if (yamlDefinition != null) {
+            return swagger2Validator(yamlDefinition.get(), validationLevel, result);
+        }
+        return swagger2Validator(rootNode, validationLevel, result);
+    }
+
     public static boolean swagger2Validator(String swagger, int validationLevel) {
+        ValidationResult result = new ValidationResult();
+        boolean isSwaggerMissing = swagger2Validator(swagger, validationLevel, result);
+        result.publish(log, summary);
+        return isSwaggerMissing;
+    }
+
+    static boolean swagger2Validator(String swagger, int validationLevel, ValidationResult result) {
+        if (swagger == null || swagger.trim().isEmpty()) {
+            return swagger2Validator(new SwaggerDeserializationResult().message("empty or null swagger supplied"),
+                    null, validationLevel, result);
+        }
+        JsonNode rootNode;
+        try {
+            if (swagger.trim().startsWith("{")) {
+                rootNode = Json.mapper().readTree(swagger);
+            } else {
+                rootNode = DeserializationUtils.readYamlTree(swagger);
+            }
+        } catch (Exception e) {
+            return swagger2Validator(new SwaggerDeserializationResult().message(Constants.MALFORMED_SWAGGER_ERROR),
+                    null, validationLevel, result);
+        }
+        return swagger2Validator(rootNode, validationLevel, result);
+    }
+
+    /**
+     * Validates an already parsed definition as a Swagger 2 definition, in the same way as
+     * {@link SwaggerParser#readWithInfo(String)} does after parsing the definition.
+     *
+     * @param rootNode        root node of the definition
+     * @param validationLevel validation level [0,1,2]
+     * @param result          result to record the validation outcome of the definition
+     * @return whether the swagger attribute is missing in the definition
+     */
+    static boolean swagger2Validator(JsonNode rootNode, int validationLevel, ValidationResult result) {
+        SwaggerDeserializationResult parseAttemptForV2;
+        Exception parseException = null;
+        checkTimeout(result);
+        result.timings.start(ValidationPhase.OAS2_PARSE);
+        try {
+            parseAttemptForV2 = new Swagger20Parser().readWithInfo(rootNode);
+            if (parseAttemptForV2 != null && !isResolutionNeeded(parseAttemptForV2, validationLevel)) {
+                result.timings.stop();
+                return swagger2Validator(parseAttemptForV2, null, validationLevel, result);
+            }
+            if (parseAttemptForV2 != null) {
+                checkTimeout(result);
+                parseAttemptForV2.setSwagger(resolveSwagger(parseAttemptForV2.getSwagger()));
+            } else {
+                parseAttemptForV2 = new SwaggerDeserializationResult()
+                        .message("Definition does not appear to be a valid Swagger format");
+            }
+        } catch (ResourceLimitExceededException e) {
+            throw e;
+        } catch (Exception e) {
+            parseAttemptForV2 = new SwaggerDeserializationResult().message(Constants.MALFORMED_SWAGGER_ERROR);
+            parseException = e;
+        }
+        result.timings.stop();
+        return swagger2Validator(parseAttemptForV2, parseException, validationLevel, result);
+    }
+
+    private static boolean swagger2Validator(SwaggerDeserializationResult parseAttemptForV2,
+                                             Exception parseException, int validationLevel,
+                                             ValidationResult result) {
         boolean isSwaggerMissing = false;
-        SwaggerParser parser = new SwaggerParser();
-        Swagger20Parser parser1 = new Swagger20Parser();
-        ParseOptions options = new ParseOptions();
-        options.setResolve(true);
-        options.setResolveFully(true);
-        SwaggerDeserializationResult parseAttemptForV2 = parser.readWithInfo(swagger);
         if (parseAttemptForV2.getMessages().size() > 0) {
             if (validationLevel == 1) {
                 StringBuilder errorMessageBuilder = new StringBuilder("Invalid OpenAPI, Error Code: ");
@@ -245,15 +960,15 @@ public class SwaggerTool {
                     errorMessageBuilder.append(Constants.INVALID_OAS2_FOUND_ERROR_CODE)
                             .append(", Error: ").append(Constants.INVALID_OAS2_FOUND_ERROR_MESSAGE)
                             .append(", Swagger Error: ").append(Constants.SWAGGER_IS_MISSING_MSG);
-                    log.error(errorMessageBuilder.toString());
+                    result.error(errorMessageBuilder.toString());
                     isSwaggerMissing = true;
-                    validationFailedFileCount++;
+                    result.validationFailedFileCount++;
                 } else {
                     if (parseAttemptForV2.getSwagger() == null) {
-                        validationFailedFileCount++;
+                        result.validationFailedFileCount++;
                     } else {
-                        validationSuccessFileCount++;
-                        log.info("Swagger file will accepted by the APIM 4.0.0 ");
+                        result.validationSuccessFileCount++;
+                        result.info("Swagger file will accepted by the APIM 4.0.0 ");
                     }
                 }
             } else if (validationLevel == 2) {
@@ -263,55 +978,180 @@ public class SwaggerTool {
                         errorMessageBuilder.append(Constants.INVALID_OAS2_FOUND_ERROR_CODE)
                                 .append(", Error: ").append(Constants.INVALID_OAS2_FOUND_ERROR_MESSAGE)
                                 .append(", Swagger Error: ").append(Constants.SWAGGER_IS_MISSING_MSG);
-                        log.error(errorMessageBuilder.toString());
+                        result.error(errorMessageBuilder.toString());
                         isSwaggerMissing = true;
                     } else if (message.contains(Constants.MALFORMED_SWAGGER_ERROR)) {
                         errorMessageBuilder.append(Constants.OPENAPI_PARSE_EXCEPTION_ERROR_CODE)
                                 .append(", Error: ").append(Constants.OPENAPI_PARSE_EXCEPTION_ERROR_MESSAGE)
                                 .append(", Swagger Error: ").append(message);
-                        try {
-                            parser.parse(swagger);
-                            log.error(errorMessageBuilder.toString());
-                        } catch (Exception e) {
-                            errorMessageBuilder.append(", Cause by: ").append(e.getMessage());
-                            log.error(errorMessageBuilder.toString());
+                        if (parseException != null) {
+                            errorMessageBuilder.append(", Cause by: ").append(parseException.getMessage());
                         }
+                        result.error(errorMessageBuilder.toString());
                     } else {
                         errorMessageBuilder.append(Constants.OPENAPI_PARSE_EXCEPTION_ERROR_CODE)
                                 .append(", Error: ").append(Constants.OPENAPI_PARSE_EXCEPTION_ERROR_MESSAGE)
                                 .append(", Swagger Error: ").append(message);
-                        log.error(errorMessageBuilder.toString());
+                        result.error(errorMessageBuilder.toString());
                     }
                 }
-                validationFailedFileCount++;
+                result.validationFailedFileCount++;
             }
             if (parseAttemptForV2.getSwagger() != null) {
-                log.info("Swagger passed with errors, using may lead to functionality issues.");
-                totalPartialyPasedSwaggerFiles++;
+                result.info("Swagger passed with errors, using may lead to functionality issues.");
+                result.totalPartialyPasedSwaggerFiles++;
             } else {
-                log.error("Malformed Swagger, Please fix the listed issues before proceeding");
-                totalMalformedSwaggerFiles++;
+                result.error("Malformed Swagger, Please fix the listed issues before proceeding");
+                result.totalMalformedSwaggerFiles++;
             }
         } else {
             if (parseAttemptForV2.getSwagger() != null) {
-                log.info("Swagger file is valid");
-                validationSuccessFileCount++;
+                result.info("Swagger file is valid");
+                result.validationSuccessFileCount++;
             } else {
-                log.error(Constants.UNABLE_TO_RENDER_THE_DEFINITION_ERROR);
-                validationFailedFileCount++;
+                result.error(Constants.UNABLE_TO_RENDER_THE_DEFINITION_ERROR);
+                result.validationFailedFileCount++;
             }
         }
         return isSwaggerMissing;
     }
 
     public static boolean swagger3Validator(String swagger, int validationLevel) {
-        boolean isOpenAPIMissing = false;
+        ValidationResult result = new ValidationResult();
+        boolean isOpenAPIMissing = swagger3Validator(swagger, validationLevel, result);
+        result.publish(log, summary);
+        return isOpenAPIMissing;
+    }
 
-        OpenAPIV3Parser openAPIV3Parser = new OpenAPIV3Parser();
+    static boolean swagger3Validator(String swagger, int validationLevel, ValidationResult result) {
+        SwaggerParseResult parseResult = new SwaggerParseResult();
+        if (swagger == null || swagger.trim().isEmpty()) {
+            parseResult.setMessages(Collections.singletonList("No swagger supplied"));
+            return swagger3Validator(parseResult, validationLevel, result);
+        }
+        JsonNode rootNode;
+        try {
+            rootNode = (swagger.trim().startsWith("{") ? JSON_MAPPER : YAML_MAPPER).readTree(swagger);
+        } catch (Exception e) {
+            parseResult.setMessages(Collections.singletonList(e.getMessage()));
+            return swagger3Validator(parseResult, validationLevel, result);
+        }
+        return swagger3Validator(rootNode, validationLevel, result);
+    }
+
+    /**
+     * Validates an already parsed definition as an OpenAPI 3 definition, in the same way as
+     * {@link OpenAPIV3Parser#readContents(String, List, ParseOptions)} does after parsing the definition when both
+     * resolve and resolveFully options are set.
+     *
+     * @param rootNode        root node of the definition
+     * @param validationLevel validation level [0,1,2]
+     * @param result          result to record the validation outcome of the definition
+     * @return whether the openapi attribute is missing in the definition
+     */
+    static boolean swagger3Validator(JsonNode rootNode, int validationLevel, ValidationResult result) {
         ParseOptions options = new ParseOptions();
         options.setResolve(true);
         options.setResolveFully(true);
-        SwaggerParseResult parseResult = openAPIV3Parser.readContents(swagger, null, options);
+        SwaggerParseResult parseResult = new SwaggerParseResult();
+        checkTimeout(result);
+        result.timings.start(ValidationPhase.OAS3_PARSE);
+        try {
+            parseResult = new OpenAPIDeserializer().deserialize(rootNode);
+            if (!isResolutionNeeded(parseResult, validationLevel)) {
+                result.timings.stop();
+                return swagger3Validator(parseResult, validationLevel, result);
+            }
+            checkTimeout(result);
+            parseResult.setOpenAPI(resolveOpenAPI(parseResult.getOpenAPI()));
+            checkTimeout(result);
+            result.timings.start(ValidationPhase.OAS3_RESOLVE_FULLY);
+            newResolverFully(options.isResolveCombinators(), result.guard).resolveFully(parseResult.getOpenAPI());
+        } catch (ResourceLimitExceededException e) {
+            throw e;
+        } catch (Exception e) {
+            parseResult.setMessages(Collections.singletonList(e.getMessage()));
+        }
+        result.timings.stop();
+        return swagger3Validator(parseResult, validationLevel, result);
+    }
+
+    /**
+     * Resolution does not add messages to the parse result, but an exception thrown while resolving replaces the
+     * messages with the exception message. At level 0 the messages are not reported, hence once the parse result has
+     * messages, other than the missing openapi attribute which selects the Swagger 2 parser, the reported outcome is
+     * the same whether or not the definition is resolved. The levels 1 and 2 report the messages, hence they always
+     * resolve the definition.
+     *
+     * @param parseResult     OpenAPI 3 parse result before the definition is resolved
+     * @param validationLevel validation level [0,1,2]
+     * @return whether the definition has to be resolved to report the outcome of the validation level
+     */
+    private static boolean isResolutionNeeded(SwaggerParseResult parseResult, int validationLevel) {
+        if (validationLevel != 0 || parseResult.getMessages() == null || parseResult.getMessages().isEmpty()) {
+            return true;
+        }
+        for (String message : parseResult.getMessages()) {
+            if (message.contains(Constants.OPENAPI_IS_MISSING_MSG)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * At level 0 a Swagger 2 definition with messages and without a model is reported as malformed, which resolving
+     * the missing model cannot change.
+     *
+     * @param parseAttemptForV2 Swagger 2 parse result before the definition is resolved
+     * @param validationLevel   validation level [0,1,2]
+     * @return whether the definition has to be resolved to report the outcome of the validation level
+     */
+    private static boolean isResolutionNeeded(SwaggerDeserializationResult parseAttemptForV2, int validationLevel) {
+        return validationLevel != 0 || parseAttemptForV2.getMessages() == null
+                || parseAttemptForV2.getMessages().isEmpty() || parseAttemptForV2.getSwagger() != null;
+    }
+
+    /**
+     * @param resolveCombinators whether to resolve the allOf, anyOf and oneOf combinators
+     * @param guard              resources used by the definition, or null if the resources are not limited
+     * @return resolver counting the resolved schemas against the limits of the definition
+     */
+    private static ResolverFully newResolverFully(boolean resolveCombinators, ResourceLimits.Guard guard) {
+        if (guard == null) {
+            return new ResolverFully(resolveCombinators);
+        }
+        return new ResolverFully(resolveCombinators) {
+            // ResolverFully declares the method with the raw type, hence it cannot be overridden with Schema<?>
+            @Override
+            @SuppressWarnings("rawtypes")
+            public Schema resolveSchema(Schema schema) {
+                guard.onSchemaResolved();
+                return super.resolveSchema(schema);
+            }
+        };
+    }
+
+    private static OpenAPI resolveOpenAPI(OpenAPI openAPI) {
+        ExternalRefCache refCache = externalRefCache;
+        if (refCache != null) {
+            return SharedOpenAPIResolverCache.resolve(openAPI, refCache);
+        }
+        return new OpenAPIResolver(openAPI, new ArrayList<AuthorizationValue>(), null).resolve();
+    }
+
+    private static Swagger resolveSwagger(Swagger swagger) {
+        ExternalRefCache refCache = externalRefCache;
+        if (refCache != null) {
+            return SharedSwaggerResolverCache.resolve(swagger, refCache);
+        }
+        return new SwaggerResolver(swagger, new ArrayList<io.swagger.models.auth.AuthorizationValue>(), null)
+                .resolve();
+    }
+
+    private static boolean swagger3Validator(SwaggerParseResult parseResult, int validationLevel,
+                                             ValidationResult result) {
+        boolean isOpenAPIMissing = false;
         if (parseResult.getMessages().size() > 0) {
             if (validationLevel == 1 || validationLevel == 2) {
                 for (String message : parseResult.getMessages()) {
@@ -319,35 +1159,35 @@ public class SwaggerTool {
                     if (message.contains(Constants.OPENAPI_IS_MISSING_MSG)) {
                         errorMessageBuilder.append(Constants.INVALID_OAS3_FOUND_ERROR_CODE)
                                 .append(", Error: ").append(Constants.INVALID_OAS3_FOUND_ERROR_MESSAGE);
-                        log.error(errorMessageBuilder.toString());
+                        result.error(errorMessageBuilder.toString());
                         isOpenAPIMissing = true;
                     } else {
                         errorMessageBuilder.append(Constants.OPENAPI_PARSE_EXCEPTION_ERROR_CODE)
                                 .append(", Error: ").append(Constants.OPENAPI_PARSE_EXCEPTION_ERROR_MESSAGE)
                                 .append(", Swagger Error: ").append(message);
-                        log.error(errorMessageBuilder.toString());
+                        result.error(errorMessageBuilder.toString());
                     }
                 }
             }
             if (!isOpenAPIMissing) {
                 if (parseResult.getOpenAPI() != null) {
-                    log.info("OpenAPI passed with errors, using may lead to functionality issues.");
-                    totalPartialyPasedSwaggerFiles++;
+                    result.info("OpenAPI passed with errors, using may lead to functionality issues.");
+                    result.totalPartialyPasedSwaggerFiles++;
                 } else {
-                    log.error("Malformed OpenAPI, Please fix the listed issues before proceeding");
-                    ++totalMalformedSwaggerFiles;
+                    result.error("Malformed OpenAPI, Please fix the listed issues before proceeding");
+                    ++result.totalMalformedSwaggerFiles;
                 }
                 if (validationLevel != 0) {
-                    validationFailedFileCount++;
+                    result.validationFailedFileCount++;
                 }
             }
         } else {
             if (parseResult.getOpenAPI() != null) {
-                log.info("Swagger file is valid OpenAPI 3 definition");
-                validationSuccessFileCount++;
+                result.info("Swagger file is valid OpenAPI 3 definition");
+                result.validationSuccessFileCount++;
             } else {
-                log.error(Constants.UNABLE_TO_RENDER_THE_DEFINITION_ERROR);
-                validationFailedFileCount++;
+                result.error(Constants.UNABLE_TO_RENDER_THE_DEFINITION_ERROR);
+                result.validationFailedFileCount++;
             }
         }
         return isOpenAPIMissing;
@@ -0,0 +1,47 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+/**
+ * Entry point of the tool jar. In batch mode the standard output carries only the JSON result lines, hence it is moved
+ * to the standard error before {@link SwaggerTool} is loaded. Loading it initialises the logging framework, which
+ * writes its console output and start-up warnings to the standard output at that point.
+ */
+public class SwaggerToolLauncher {
+
+    /**
+     * @param args command line arguments, as described by {@link SwaggerTool#main(String[])}
+     */
+    public static void main(String[] args) {
+        boolean batchMode;
+        try {
+            // The configuration does not log, hence it is parsed without initialising the logging framework
+            batchMode = ToolConfiguration.parse(args).isBatchMode();
+        } catch (IllegalArgumentException e) {
+            // Reported by the tool along with the usage
+            batchMode = false;
+        }
+        if (batchMode) {
+            System.setOut(System.err);
+        }
+        SwaggerTool.main(args);
+    }
+}
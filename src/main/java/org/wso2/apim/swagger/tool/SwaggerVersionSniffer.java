@@ -0,0 +1,146 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+/**
+ * Detects the version and the title of a swagger/openAPI definition by streaming only the top level fields of the
+ * definition. Nested objects other than info are skipped without being materialized, and the parsing stops as soon as
+ * the fields read decide the version and the title, so the cost does not grow with the size of the paths and
+ * components. An openapi field other than 3.x decides the version only together with the swagger field, hence the
+ * remaining top level fields are read until the swagger field is found. Syntax errors after the deciding fields are not
+ * detected here, they are reported when the definition is parsed for validation.
+ */
+class SwaggerVersionSniffer {
+    private final String openAPIVersion;
+    private final boolean swaggerVersionPresent;
+    private final String title;
+
+    private SwaggerVersionSniffer(String openAPIVersion, boolean swaggerVersionPresent, String title) {
+        this.openAPIVersion = openAPIVersion;
+        this.swaggerVersionPresent = swaggerVersionPresent;
+        this.title = title;
+    }
+
+    /**
+     * @param apiDefinition swagger/openAPI definition
+     * @param mapper        mapper of the definition format, used to create the streaming parser
+     * @return detected version fields, or null when the definition is not an object with an info object having a
+     * title, or cannot be read. Such definitions should be inspected with the complete tree instead.
+     */
+    static SwaggerVersionSniffer sniff(String apiDefinition, ObjectMapper mapper) {
+        String openAPIVersion = null;
+        boolean openAPIVersionPresent = false;
+        boolean swaggerVersionPresent = false;
+        String title = null;
+        try (JsonParser parser = mapper.getFactory().createParser(apiDefinition)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken valueToken = parser.nextToken();
+                if ("openapi".equals(fieldName)) {
+                    openAPIVersionPresent = true;
+                    openAPIVersion = readText(parser, mapper, valueToken);
+                } else if ("swagger".equals(fieldName)) {
+                    swaggerVersionPresent = true;
+                    parser.skipChildren();
+                } else if ("info".equals(fieldName)) {
+                    if (valueToken != JsonToken.START_OBJECT) {
+                        return null;
+                    }
+                    title = readTitle(parser, mapper);
+                    if (title == null) {
+                        return null;
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+                boolean openAPI3 = openAPIVersion != null && openAPIVersion.startsWith("3.");
+                if (title != null && (openAPI3 || openAPIVersionPresent && swaggerVersionPresent)) {
+                    // A later field cannot change the detected version
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return new SwaggerVersionSniffer(openAPIVersion, swaggerVersionPresent, title == null ? "" : title);
+    }
+
+    /**
+     * Reads the title of the info object, positioned at the start of the info object.
+     */
+    private static String readTitle(JsonParser parser, ObjectMapper mapper) throws IOException {
+        String title = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+            if ("title".equals(fieldName) && title == null) {
+                title = readText(parser, mapper, valueToken);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return title;
+    }
+
+    /**
+     * Reads the current value as {@link JsonNode#asText()} does, without materializing object and array values.
+     */
+    private static String readText(JsonParser parser, ObjectMapper mapper, JsonToken valueToken) throws IOException {
+        if (valueToken.isStructStart()) {
+            parser.skipChildren();
+            return "";
+        }
+        if (valueToken == JsonToken.VALUE_NULL) {
+            // Same as the text of a null node of the tree
+            return "null";
+        }
+        JsonNode valueNode = mapper.readTree(parser);
+        return valueNode == null ? "" : valueNode.asText();
+    }
+
+    /**
+     * @return text of the openapi field, or null if the field is not present
+     */
+    String getOpenAPIVersion() {
+        return openAPIVersion;
+    }
+
+    boolean isSwaggerVersionPresent() {
+        return swaggerVersionPresent;
+    }
+
+    /**
+     * @return title of the definition, or an empty string if the definition does not have an info object
+     */
+    String getTitle() {
+        return title;
+    }
+}
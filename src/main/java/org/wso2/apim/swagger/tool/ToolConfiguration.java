@@ -0,0 +1,449 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Command line configuration of the tool. Positional arguments are the swagger input and the validation level, while
+ * the optional settings are given as --name=value (or --name value) options.
+ */
+class ToolConfiguration {
+    // An inline YAML definition may start with the "---" document marker, hence options must start with a letter.
+    private static final Pattern OPTION_PATTERN = Pattern.compile("^--([a-z][a-z0-9-]*)(=(.*))?$", Pattern.DOTALL);
+    // Options without a value, the other options take the next argument as the value when it is not given with =
+    private static final Set<String> FLAG_OPTIONS = new HashSet<>(Arrays.asList("virtual-threads", "no-cache",
+            "cache", "clear-cache", "server", "metrics", "no-ref-cache", "watch", "batch", "ordered"));
+    static final int DEFAULT_REF_CACHE_MB = 64;
+
+    private String input;
+    private int validationLevel = 2;
+    private int threadCount = 1;
+    private boolean virtualThreads = false;
+    private boolean cacheEnabled = false;
+    private boolean noCache = false;
+    private boolean clearCache = false;
+    private Path cacheDirectory = Paths.get(System.getProperty("user.home"), ".apim-swagger-validator");
+    private int cacheSize = 100000;
+    private boolean serverMode = false;
+    private String serverHost = "127.0.0.1";
+    private int serverPort = 9095;
+    private int queueSize = 64;
+    private long maxRequestBytes = 64L * 1024 * 1024;
+    private long maxInFlightBytes = getDefaultMaxInFlightBytes();
+    private boolean metricsEnabled = false;
+    private int slowestDefinitionCount = 10;
+    private Path metricsFile;
+    private boolean refCacheEnabled = true;
+    private long refCacheBytes = DEFAULT_REF_CACHE_MB * 1024L * 1024L;
+    private Path refMirrorDirectory;
+    private boolean watchMode = false;
+    private int watchDebounceMillis = 100;
+    private long fileTimeoutMillis = 0;
+    private long maxFileBytes = 0;
+    private int maxNestingDepth = 0;
+    private int maxResolvedSchemas = 0;
+    private boolean batchMode = false;
+    private String batchFormat = "ndjson";
+    private boolean orderedOutput = false;
+    private int shardIndex = -1;
+    private int shardCount = 0;
+    private Path shardOutput;
+    private boolean mergeMode = false;
+    private final List<Path> mergeFiles = new ArrayList<>();
+
+    /**
+     * @param args command line arguments
+     * @return parsed configuration
+     * @throws IllegalArgumentException if the arguments are not valid
+     */
+    static ToolConfiguration parse(String[] args) {
+        ToolConfiguration configuration = new ToolConfiguration();
+        List<String> positionalArgs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            Matcher matcher = OPTION_PATTERN.matcher(args[i]);
+            if (!matcher.matches()) {
+                positionalArgs.add(args[i]);
+                continue;
+            }
+            String name = matcher.group(1);
+            String value = matcher.group(3);
+            if (value == null && !FLAG_OPTIONS.contains(name) && i + 1 < args.length) {
+                // The value is given as the next argument
+                value = args[++i];
+            }
+            switch (name) {
+                case "threads":
+                    configuration.threadCount = parsePositiveInt(name, value);
+                    break;
+                case "virtual-threads":
+                    configuration.virtualThreads = true;
+                    break;
+                case "cache":
+                    configuration.cacheEnabled = true;
+                    break;
+                case "no-cache":
+                    configuration.noCache = true;
+                    break;
+                case "clear-cache":
+                    configuration.clearCache = true;
+                    configuration.cacheEnabled = true;
+                    break;
+                case "cache-dir":
+                    configuration.cacheDirectory = Paths.get(requireValue(name, value, "directory path"));
+                    configuration.cacheEnabled = true;
+                    break;
+                case "cache-size":
+                    configuration.cacheSize = parsePositiveInt(name, value);
+                    configuration.cacheEnabled = true;
+                    break;
+                case "server":
+                    configuration.serverMode = true;
+                    break;
+                case "host":
+                    configuration.serverHost = requireValue(name, value, "host name or address");
+                    break;
+                case "port":
+                    configuration.serverPort = parsePositiveInt(name, value);
+                    break;
+                case "queue-size":
+                    configuration.queueSize = parsePositiveInt(name, value);
+                    break;
+                case "max-request-mb":
+                    configuration.maxRequestBytes = parsePositiveInt(name, value) * 1024L * 1024L;
+                    break;
+                case "max-in-flight-mb":
+                    configuration.maxInFlightBytes = parsePositiveInt(name, value) * 1024L * 1024L;
+                    break;
+                case "metrics":
+                    configuration.metricsEnabled = true;
+                    break;
+                case "slowest":
+                    configuration.slowestDefinitionCount = parsePositiveInt(name, value);
+                    configuration.metricsEnabled = true;
+                    break;
+                case "metrics-file":
+                    configuration.metricsFile = Paths.get(requireValue(name, value, "file path"));
+                    configuration.metricsEnabled = true;
+                    break;
+                case "no-ref-cache":
+                    configuration.refCacheEnabled = false;
+                    break;
+                case "ref-cache-mb":
+                    configuration.refCacheBytes = parsePositiveInt(name, value) * 1024L * 1024L;
+                    break;
+                case "ref-mirror":
+                    configuration.refMirrorDirectory = Paths.get(requireValue(name, value, "directory path"))
+                            .toAbsolutePath().normalize();
+                    break;
+                case "watch":
+                    configuration.watchMode = true;
+                    break;
+                case "watch-debounce-ms":
+                    configuration.watchDebounceMillis = parsePositiveInt(name, value);
+                    break;
+                case "file-timeout-ms":
+                    configuration.fileTimeoutMillis = parsePositiveInt(name, value);
+                    break;
+                case "max-file-mb":
+                    configuration.maxFileBytes = parsePositiveInt(name, value) * 1024L * 1024L;
+                    break;
+                case "max-depth":
+                    configuration.maxNestingDepth = parsePositiveInt(name, value);
+                    break;
+                case "max-resolved-schemas":
+                    configuration.maxResolvedSchemas = parsePositiveInt(name, value);
+                    break;
+                case "batch":
+                    configuration.batchMode = true;
+                    break;
+                case "batch-format":
+                    if (!"ndjson".equals(value) && !"frames".equals(value)) {
+                        throw new IllegalArgumentException("Option --" + name + " should be ndjson or frames");
+                    }
+                    configuration.batchFormat = value;
+                    configuration.batchMode = true;
+                    break;
+                case "ordered":
+                    configuration.orderedOutput = true;
+                    break;
+                case "shard-index":
+                    configuration.shardIndex = parseNonNegativeInt(name, value);
+                    break;
+                case "shard-count":
+                    configuration.shardCount = parsePositiveInt(name, value);
+                    break;
+                case "shard-output":
+                    configuration.shardOutput = Paths.get(requireValue(name, value, "file path"));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        if (!positionalArgs.isEmpty() && "merge".equals(positionalArgs.get(0))) {
+            // The partial result files of the shards are merged instead of validating an input
+            if (positionalArgs.size() == 1) {
+                throw new IllegalArgumentException("Expected the shard result files to merge");
+            }
+            configuration.mergeMode = true;
+            for (String mergeFile : positionalArgs.subList(1, positionalArgs.size())) {
+                configuration.mergeFiles.add(Paths.get(mergeFile));
+            }
+            return configuration;
+        }
+        if ((configuration.shardIndex >= 0) != (configuration.shardCount > 0)) {
+            throw new IllegalArgumentException("Options --shard-index and --shard-count should be given together");
+        }
+        if (configuration.shardCount > 0 && configuration.shardIndex >= configuration.shardCount) {
+            throw new IllegalArgumentException("Option --shard-index should be less than --shard-count");
+        }
+        if (configuration.shardCount > 0 && (configuration.serverMode || configuration.watchMode
+                || configuration.batchMode)) {
+            throw new IllegalArgumentException("Options --shard-index and --shard-count can only be used to validate "
+                    + "a location");
+        }
+        if (configuration.shardOutput != null && configuration.shardCount == 0) {
+            throw new IllegalArgumentException("Option --shard-output requires --shard-index and --shard-count");
+        }
+        if ((configuration.serverMode ? 1 : 0) + (configuration.watchMode ? 1 : 0)
+                + (configuration.batchMode ? 1 : 0) > 1) {
+            throw new IllegalArgumentException("Only one of the options --server, --watch and --batch can be used");
+        }
+        if (configuration.orderedOutput && !configuration.batchMode) {
+            throw new IllegalArgumentException("Option --ordered requires --batch");
+        }
+        if (configuration.serverMode || configuration.batchMode) {
+            // The definitions are received by the server or read from the standard input, hence only the default
+            // validation level can be given
+            if (positionalArgs.size() > 1) {
+                throw new IllegalArgumentException("Expected only an optional validation level in "
+                        + (configuration.serverMode ? "server" : "batch") + " mode");
+            }
+            if (positionalArgs.size() == 1) {
+                configuration.validationLevel = Integer.parseInt(positionalArgs.get(0));
+            }
+            return configuration;
+        }
+        if (positionalArgs.isEmpty() || positionalArgs.size() > 2) {
+            throw new IllegalArgumentException("Expected the swagger input and an optional validation level");
+        }
+        configuration.input = positionalArgs.get(0);
+        if (configuration.watchMode && !configuration.input.startsWith("location:")) {
+            throw new IllegalArgumentException("Option --watch requires a location: input");
+        }
+        if (configuration.shardCount > 0 && !configuration.input.startsWith("location:")) {
+            throw new IllegalArgumentException("Options --shard-index and --shard-count require a location: input");
+        }
+        if (configuration.shardCount > 0 && configuration.shardOutput == null) {
+            configuration.shardOutput = Paths.get("shard-" + configuration.shardIndex + "-of-"
+                    + configuration.shardCount + ".json");
+        }
+        if (positionalArgs.size() == 2) {
+            configuration.validationLevel = Integer.parseInt(positionalArgs.get(1));
+        }
+        return configuration;
+    }
+
+    private static String requireValue(String name, String value, String description) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Option --" + name + " requires a " + description);
+        }
+        return value;
+    }
+
+    private static int parsePositiveInt(String name, String value) {
+        try {
+            int parsedValue = Integer.parseInt(value);
+            if (parsedValue > 0) {
+                return parsedValue;
+            }
+        } catch (NumberFormatException e) {
+            // handled below
+        }
+        throw new IllegalArgumentException("Option --" + name + " requires a positive integer value");
+    }
+
+    private static int parseNonNegativeInt(String name, String value) {
+        try {
+            int parsedValue = Integer.parseInt(value);
+            if (parsedValue >= 0) {
+                return parsedValue;
+            }
+        } catch (NumberFormatException e) {
+            // handled below
+        }
+        throw new IllegalArgumentException("Option --" + name + " requires a non-negative integer value");
+    }
+
+    /**
+     * @return default size of the swagger files held in memory at once, which leaves room for the parsed trees and
+     * models that are several times larger than the files
+     */
+    static long getDefaultMaxInFlightBytes() {
+        return Runtime.getRuntime().maxMemory() / 8;
+    }
+
+    String getInput() {
+        return input;
+    }
+
+    int getValidationLevel() {
+        return validationLevel;
+    }
+
+    int getThreadCount() {
+        return threadCount;
+    }
+
+    boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * @return whether the result cache is used, which is enabled by --cache or any of the cache options unless
+     * --no-cache is given
+     */
+    boolean isCacheEnabled() {
+        return cacheEnabled && !noCache;
+    }
+
+    boolean isClearCache() {
+        return clearCache;
+    }
+
+    Path getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    int getCacheSize() {
+        return cacheSize;
+    }
+
+    boolean isServerMode() {
+        return serverMode;
+    }
+
+    String getServerHost() {
+        return serverHost;
+    }
+
+    int getServerPort() {
+        return serverPort;
+    }
+
+    int getQueueSize() {
+        return queueSize;
+    }
+
+    long getMaxRequestBytes() {
+        return maxRequestBytes;
+    }
+
+    long getMaxInFlightBytes() {
+        return maxInFlightBytes;
+    }
+
+    boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    int getSlowestDefinitionCount() {
+        return slowestDefinitionCount;
+    }
+
+    Path getMetricsFile() {
+        return metricsFile;
+    }
+
+    boolean isRefCacheEnabled() {
+        return refCacheEnabled;
+    }
+
+    long getRefCacheBytes() {
+        return refCacheBytes;
+    }
+
+    Path getRefMirrorDirectory() {
+        return refMirrorDirectory;
+    }
+
+    boolean isWatchMode() {
+        return watchMode;
+    }
+
+    int getWatchDebounceMillis() {
+        return watchDebounceMillis;
+    }
+
+    boolean isBatchMode() {
+        return batchMode;
+    }
+
+    /**
+     * @return format of the definitions read from the standard input in batch mode, ndjson or frames
+     */
+    String getBatchFormat() {
+        return batchFormat;
+    }
+
+    boolean isOrderedOutput() {
+        return orderedOutput;
+    }
+
+    boolean isSharded() {
+        return shardCount > 0;
+    }
+
+    int getShardIndex() {
+        return shardIndex;
+    }
+
+    int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * @return file to write the partial result of the shard to
+     */
+    Path getShardOutput() {
+        return shardOutput;
+    }
+
+    boolean isMergeMode() {
+        return mergeMode;
+    }
+
+    List<Path> getMergeFiles() {
+        return mergeFiles;
+    }
+
+    ResourceLimits getResourceLimits() {
+        return new ResourceLimits(fileTimeoutMillis, maxFileBytes, maxNestingDepth, maxResolvedSchemas);
+    }
+}
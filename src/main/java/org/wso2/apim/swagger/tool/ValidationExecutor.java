@@ -0,0 +1,140 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs validation tasks on a bounded worker pool. With a single worker the tasks are run on the calling thread, which
+ * keeps the sequential behaviour of the tool. The number of submitted but not completed tasks is bounded, so walking a
+ * large directory does not queue up every file of it in memory.
+ */
+class ValidationExecutor implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ValidationExecutor.class);
+    private static final int QUEUED_TASKS_PER_WORKER = 4;
+
+    private final ExecutorService executorService;
+    private final Semaphore inFlightTasks;
+    private final int maxInFlightTasks;
+
+    private ValidationExecutor(ExecutorService executorService, int maxInFlightTasks) {
+        this.executorService = executorService;
+        this.maxInFlightTasks = maxInFlightTasks;
+        this.inFlightTasks = new Semaphore(maxInFlightTasks);
+    }
+
+    /**
+     * @param threadCount    number of definitions validated concurrently
+     * @param virtualThreads whether to run the workers on virtual threads when the runtime supports them
+     * @return executor for the given configuration
+     */
+    static ValidationExecutor create(int threadCount, boolean virtualThreads) {
+        if (threadCount <= 1 && !virtualThreads) {
+            return new ValidationExecutor(null, 1);
+        }
+        int workers = Math.max(threadCount, 1);
+        ExecutorService executorService = null;
+        if (virtualThreads) {
+            executorService = newVirtualThreadPerTaskExecutor();
+        }
+        if (executorService == null) {
+            AtomicInteger workerIndex = new AtomicInteger();
+            executorService = Executors.newFixedThreadPool(workers, runnable -> {
+                Thread thread = new Thread(runnable, "swagger-validator-" + workerIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return new ValidationExecutor(executorService, workers * QUEUED_TASKS_PER_WORKER);
+    }
+
+    /**
+     * Virtual threads are only available from Java 21 onwards while the tool is built for Java 8, hence the executor
+     * is looked up reflectively and the platform thread pool is used when it is not available.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.info("Virtual threads are not supported by the current Java runtime, hence using platform threads");
+            return null;
+        }
+    }
+
+    /**
+     * Submits a task, blocking while the maximum number of tasks are already in flight.
+     *
+     * @param task validation task
+     */
+    void execute(Runnable task) {
+        if (executorService == null) {
+            task.run();
+            return;
+        }
+        inFlightTasks.acquireUninterruptibly();
+        try {
+            executorService.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException | Error e) {
+                    log.error("Error occurred while validating the swagger definition", e);
+                } finally {
+                    inFlightTasks.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlightTasks.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Blocks until all the submitted tasks are completed.
+     */
+    void awaitCompletion() {
+        if (executorService == null) {
+            return;
+        }
+        inFlightTasks.acquireUninterruptibly(maxInFlightTasks);
+        inFlightTasks.release(maxInFlightTasks);
+    }
+
+    @Override
+    public void close() {
+        if (executorService == null) {
+            return;
+        }
+        awaitCompletion();
+        executorService.shutdown();
+        try {
+            executorService.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timing metrics of a validation run. The total time of each definition and the time of each validation phase are
+ * recorded in latency histograms, together with the allocated bytes of each phase, and the slowest definitions are
+ * kept for the report. The report is written after the summary and the metrics can be exported in the Prometheus text
+ * format or as JSON.
+ */
+class ValidationMetrics {
+    private static final ValidationPhase[] PHASES = ValidationPhase.values();
+    private static final double[] PERCENTILES = {50, 95, 99};
+    private static final String METRIC_PREFIX = "swagger_validator_";
+
+    private final int slowestDefinitionCount;
+    private final LatencyHistogram totalHistogram = new LatencyHistogram();
+    private final LatencyHistogram[] phaseHistograms = new LatencyHistogram[PHASES.length];
+    private final LongAdder[] phaseAllocatedBytes = new LongAdder[PHASES.length];
+    private final LongAdder definitionBytes = new LongAdder();
+    private final PriorityQueue<DefinitionTiming> slowestDefinitions =
+            new PriorityQueue<>(Comparator.comparingLong(DefinitionTiming::getTotalNanos));
+
+    /**
+     * @param slowestDefinitionCount number of the slowest definitions listed in the report
+     */
+    ValidationMetrics(int slowestDefinitionCount) {
+        this.slowestDefinitionCount = slowestDefinitionCount;
+        for (int i = 0; i < PHASES.length; i++) {
+            phaseHistograms[i] = new LatencyHistogram();
+            phaseAllocatedBytes[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param definitionName name of the validated definition, such as the file path
+     * @param bytes          size of the definition in bytes
+     * @param totalNanos     wall time of validating the definition, including reading it
+     * @param timings        timings of the validation phases of the definition
+     */
+    void record(String definitionName, long bytes, long totalNanos, PhaseTimings timings) {
+        totalHistogram.record(totalNanos);
+        definitionBytes.add(bytes);
+        for (ValidationPhase phase : PHASES) {
+            if (timings.hasRun(phase)) {
+                phaseHistograms[phase.ordinal()].record(timings.getNanos(phase));
+                phaseAllocatedBytes[phase.ordinal()].add(timings.getAllocatedBytes(phase));
+            }
+        }
+        synchronized (slowestDefinitions) {
+            if (slowestDefinitions.size() < slowestDefinitionCount) {
+                slowestDefinitions.add(new DefinitionTiming(definitionName, bytes, totalNanos, timings));
+            } else if (!slowestDefinitions.isEmpty() && slowestDefinitions.peek().getTotalNanos() < totalNanos) {
+                slowestDefinitions.poll();
+                slowestDefinitions.add(new DefinitionTiming(definitionName, bytes, totalNanos, timings));
+            }
+        }
+    }
+
+    /**
+     * Writes the latency percentiles of each phase and the slowest definitions.
+     *
+     * @param log logger to write the report to
+     */
+    void report(Logger log) {
+        log.info("Validation Latency --- " + formatHistogram("total", totalHistogram) + ". Total Bytes: "
+                + formatBytes(definitionBytes.sum()));
+        for (ValidationPhase phase : PHASES) {
+            int index = phase.ordinal();
+            log.info("Validation Latency --- " + formatHistogram(phase.getMetricName(), phaseHistograms[index])
+                    + ". Allocated: " + formatBytes(phaseAllocatedBytes[index].sum()));
+        }
+        List<DefinitionTiming> definitions = getSlowestDefinitions();
+        if (definitions.isEmpty()) {
+            return;
+        }
+        StringBuilder tableBuilder = new StringBuilder("Slowest Definitions --- Top ").append(definitions.size());
+        tableBuilder.append(String.format(Locale.ROOT, "%n%4s %12s %12s %12s", "#", "Total", "Size", "Allocated"));
+        for (ValidationPhase phase : PHASES) {
+            tableBuilder.append(String.format(Locale.ROOT, " %18s", phase.getMetricName()));
+        }
+        tableBuilder.append("  Definition");
+        for (int i = 0; i < definitions.size(); i++) {
+            DefinitionTiming definition = definitions.get(i);
+            tableBuilder.append(String.format(Locale.ROOT, "%n%4d %12s %12s %12s", i + 1,
+                    formatMillis(definition.getTotalNanos()), formatBytes(definition.getBytes()),
+                    formatBytes(definition.getTimings().getTotalAllocatedBytes())));
+            for (ValidationPhase phase : PHASES) {
+                PhaseTimings timings = definition.getTimings();
+                tableBuilder.append(String.format(Locale.ROOT, " %18s",
+                        timings.hasRun(phase) ? formatMillis(timings.getNanos(phase)) : "-"));
+            }
+            tableBuilder.append("  ").append(definition.getName());
+        }
+        log.info(tableBuilder.toString());
+    }
+
+    /**
+     * Writes the metrics to the given file, as JSON if the file name ends with .json and in the Prometheus text
+     * format otherwise.
+     *
+     * @param metricsFile file to write the metrics to
+     * @throws IOException if the file cannot be written
+     */
+    void write(Path metricsFile) throws IOException {
+        if (metricsFile.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json")) {
+            new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(metricsFile.toFile(), toJson());
+            return;
+        }
+        try (Writer writer = Files.newBufferedWriter(metricsFile, StandardCharsets.UTF_8)) {
+            writer.write(toPrometheus());
+        }
+    }
+
+    ObjectNode toJson() {
+        ObjectNode metricsNode = new ObjectMapper().createObjectNode();
+        metricsNode.put("definitionCount", totalHistogram.getCount());
+        metricsNode.put("definitionBytes", definitionBytes.sum());
+        addHistogram(metricsNode.putObject("total"), totalHistogram);
+        ObjectNode phasesNode = metricsNode.putObject("phases");
+        for (ValidationPhase phase : PHASES) {
+            ObjectNode phaseNode = phasesNode.putObject(phase.getMetricName());
+            addHistogram(phaseNode, phaseHistograms[phase.ordinal()]);
+            phaseNode.put("allocatedBytes", phaseAllocatedBytes[phase.ordinal()].sum());
+        }
+        ArrayNode slowestNodes = metricsNode.putArray("slowestDefinitions");
+        for (DefinitionTiming definition : getSlowestDefinitions()) {
+            ObjectNode definitionNode = slowestNodes.addObject();
+            definitionNode.put("name", definition.getName());
+            definitionNode.put("bytes", definition.getBytes());
+            definitionNode.put("totalMillis", toMillis(definition.getTotalNanos()));
+            ObjectNode definitionPhasesNode = definitionNode.putObject("phases");
+            for (ValidationPhase phase : PHASES) {
+                if (definition.getTimings().hasRun(phase)) {
+                    definitionPhasesNode.putObject(phase.getMetricName())
+                            .put("millis", toMillis(definition.getTimings().getNanos(phase)))
+                            .put("allocatedBytes", definition.getTimings().getAllocatedBytes(phase));
+                }
+            }
+        }
+        return metricsNode;
+    }
+
+    String toPrometheus() {
+        StringBuilder builder = new StringBuilder();
+        String durationMetric = METRIC_PREFIX + "phase_duration_seconds";
+        builder.append("# HELP ").append(durationMetric).append(" Wall time of validating a definition and of each "
+                + "validation phase.\n");
+        builder.append("# TYPE ").append(durationMetric).append(" summary\n");
+        appendPrometheusSummary(builder, durationMetric, "total", totalHistogram);
+        for (ValidationPhase phase : PHASES) {
+            appendPrometheusSummary(builder, durationMetric, phase.getMetricName(), phaseHistograms[phase.ordinal()]);
+        }
+        String allocatedMetric = METRIC_PREFIX + "phase_allocated_bytes_total";
+        builder.append("# HELP ").append(allocatedMetric).append(" Heap bytes allocated by each validation phase.\n");
+        builder.append("# TYPE ").append(allocatedMetric).append(" counter\n");
+        for (ValidationPhase phase : PHASES) {
+            builder.append(allocatedMetric).append("{phase=\"").append(phase.getMetricName()).append("\"} ")
+                    .append(phaseAllocatedBytes[phase.ordinal()].sum()).append('\n');
+        }
+        String bytesMetric = METRIC_PREFIX + "definition_bytes_total";
+        builder.append("# HELP ").append(bytesMetric).append(" Size of the validated definitions.\n");
+        builder.append("# TYPE ").append(bytesMetric).append(" counter\n");
+        builder.append(bytesMetric).append(' ').append(definitionBytes.sum()).append('\n');
+        return builder.toString();
+    }
+
+    private List<DefinitionTiming> getSlowestDefinitions() {
+        List<DefinitionTiming> definitions;
+        synchronized (slowestDefinitions) {
+            definitions = new ArrayList<>(slowestDefinitions);
+        }
+        definitions.sort(Comparator.comparingLong(DefinitionTiming::getTotalNanos).reversed());
+        return definitions;
+    }
+
+    private static void addHistogram(ObjectNode histogramNode, LatencyHistogram histogram) {
+        histogramNode.put("count", histogram.getCount());
+        histogramNode.put("totalMillis", toMillis(histogram.getTotalNanos()));
+        for (double percentile : PERCENTILES) {
+            histogramNode.put("p" + (int) percentile + "Millis", toMillis(histogram.getPercentileNanos(percentile)));
+        }
+        histogramNode.put("maxMillis", toMillis(histogram.getMaxNanos()));
+    }
+
+    private static void appendPrometheusSummary(StringBuilder builder, String metric, String phase,
+                                                LatencyHistogram histogram) {
+        for (double percentile : PERCENTILES) {
+            builder.append(metric).append("{phase=\"").append(phase).append("\",quantile=\"")
+                    .append(percentile / 100).append("\"} ")
+                    .append(toSeconds(histogram.getPercentileNanos(percentile))).append('\n');
+        }
+        builder.append(metric).append("_sum{phase=\"").append(phase).append("\"} ")
+                .append(toSeconds(histogram.getTotalNanos())).append('\n');
+        builder.append(metric).append("_count{phase=\"").append(phase).append("\"} ")
+                .append(histogram.getCount()).append('\n');
+    }
+
+    private static String formatHistogram(String name, LatencyHistogram histogram) {
+        StringBuilder builder = new StringBuilder("Phase: ").append(name).append(". Count: ")
+                .append(histogram.getCount());
+        for (double percentile : PERCENTILES) {
+            builder.append(". p").append((int) percentile).append(": ")
+                    .append(formatMillis(histogram.getPercentileNanos(percentile)));
+        }
+        return builder.append(". Max: ").append(formatMillis(histogram.getMaxNanos())).toString();
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f ms", toMillis(nanos));
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0);
+        }
+        return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1000000.0;
+    }
+
+    private static double toSeconds(long nanos) {
+        return nanos / 1000000000.0;
+    }
+
+    /**
+     * Timings of a single definition, kept for the slowest definitions table.
+     */
+    private static class DefinitionTiming {
+        private final String name;
+        private final long bytes;
+        private final long totalNanos;
+        private final PhaseTimings timings;
+
+        DefinitionTiming(String name, long bytes, long totalNanos, PhaseTimings timings) {
+            this.name = name;
+            this.bytes = bytes;
+            this.totalNanos = totalNanos;
+            this.timings = timings;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        long getBytes() {
+            return bytes;
+        }
+
+        long getTotalNanos() {
+            return totalNanos;
+        }
+
+        PhaseTimings getTimings() {
+            return timings;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+/**
+ * Phases of validating a single definition, which are timed separately by {@link PhaseTimings}.
+ */
+enum ValidationPhase {
+    // Parsing the definition to a tree and detecting the swagger/openAPI version from it
+    DETECT_VERSION("detect_version"),
+    // Deserializing the OpenAPI 3 model and resolving the references
+    OAS3_PARSE("oas3_parse"),
+    // Resolving the OpenAPI 3 schemas fully
+    OAS3_RESOLVE_FULLY("oas3_resolve_fully"),
+    // Deserializing the Swagger 2 model and resolving the references
+    OAS2_PARSE("oas2_parse");
+
+    private final String metricName;
+
+    ValidationPhase(String metricName) {
+        this.metricName = metricName;
+    }
+
+    String getMetricName() {
+        return metricName;
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.LongNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Validates a stream of definitions read from the standard input and writes one JSON result line per definition to
+ * the standard output, so many definitions are validated with a single JVM and without passing them as arguments.
+ * <p>
+ * The definitions are read either as NDJSON records, one {"id": ..., "content": ..., "level": ...} object per line
+ * where the content is the definition as a string or as a JSON object and the level is optional, or as frames of an
+ * ASCII header line "length[ id]" followed by the given number of bytes of the definition.
+ * <p>
+ * The records are read on the calling thread while the executor validates the records read earlier, and each result is
+ * written as soon as its record is validated. With ordered output the results are written in the order of the records,
+ * holding the results of the later records until the earlier records are validated.
+ */
+class ValidationPipeline {
+    private static final Logger log = LoggerFactory.getLogger(ValidationPipeline.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int MAX_FRAME_HEADER_LENGTH = 1024;
+    // Results held back by a slow record in ordered mode, per validation worker
+    private static final int ORDERED_RESULTS_PER_WORKER = 64;
+
+    private final InputStream input;
+    private final OutputStream output;
+    private final int defaultValidationLevel;
+    private final ValidationExecutor executor;
+    private final boolean ordered;
+    private final Map<Long, byte[]> pendingLines = new HashMap<>();
+    private final Semaphore pendingLineWindow;
+    private final LongAdder errorLineCount = new LongAdder();
+    private long nextLineIndex = 0;
+    private volatile boolean outputClosed = false;
+
+    /**
+     * @param input                  stream to read the definitions from
+     * @param output                 stream to write the results to
+     * @param defaultValidationLevel validation level used when a record does not specify one
+     * @param executor               executor to run the validation of each definition
+     * @param threadCount            number of definitions validated concurrently
+     * @param ordered                whether to write the results in the order of the records
+     */
+    ValidationPipeline(InputStream input, OutputStream output, int defaultValidationLevel,
+                       ValidationExecutor executor, int threadCount, boolean ordered) {
+        this.input = input;
+        this.output = output;
+        this.defaultValidationLevel = defaultValidationLevel;
+        this.executor = executor;
+        this.ordered = ordered;
+        this.pendingLineWindow = new Semaphore(Math.max(threadCount, 1) * ORDERED_RESULTS_PER_WORKER);
+    }
+
+    /**
+     * Reads NDJSON records until the end of the input and waits for their results to be written.
+     *
+     * @throws IOException if the input cannot be read
+     */
+    void runRecords() throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        long index = 0;
+        String line;
+        while (!outputClosed && (line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            readRecord(index++, line);
+        }
+        executor.awaitCompletion();
+    }
+
+    /**
+     * Reads length-prefixed frames until the end of the input and waits for their results to be written.
+     *
+     * @throws IOException if the input cannot be read
+     */
+    void runFrames() throws IOException {
+        InputStream frameInput = new BufferedInputStream(input, 64 * 1024);
+        long index = 0;
+        String header;
+        while (!outputClosed && (header = readFrameHeader(frameInput)) != null) {
+            if (header.isEmpty()) {
+                continue;
+            }
+            String[] lengthAndId = header.split(" ", 2);
+            long length;
+            try {
+                length = Long.parseLong(lengthAndId[0]);
+            } catch (NumberFormatException e) {
+                length = -1;
+            }
+            if (length < 0) {
+                // The end of the frame is not known, hence the rest of the input cannot be read
+                writeError(index, NullNode.instance, "Invalid frame header: " + header);
+                break;
+            }
+            JsonNode id = lengthAndId.length == 2 ? TextNode.valueOf(lengthAndId[1]) : LongNode.valueOf(index);
+            SwaggerFileContent content;
+            try {
+                content = SwaggerFileContent.read(frameInput, length, SwaggerTool.inFlightByteBudget);
+            } catch (IOException e) {
+                writeError(index, id, "Error occurred while reading the definition: " + e.getMessage());
+                break;
+            }
+            submit(index++, id, content, defaultValidationLevel);
+        }
+        executor.awaitCompletion();
+    }
+
+    private void readRecord(long index, String line) throws IOException {
+        JsonNode record;
+        try {
+            record = MAPPER.readTree(line);
+        } catch (IOException e) {
+            writeError(index, NullNode.instance, "Invalid record: " + e.getMessage());
+            return;
+        }
+        if (!record.isObject()) {
+            writeError(index, NullNode.instance, "Invalid record: the record should be a JSON object");
+            return;
+        }
+        JsonNode id = record.has("id") ? record.get("id") : LongNode.valueOf(index);
+        JsonNode contentNode = record.get("content");
+        byte[] content;
+        if (contentNode != null && contentNode.isTextual()) {
+            content = contentNode.asText().getBytes(StandardCharsets.UTF_8);
+        } else if (contentNode != null && contentNode.isObject()) {
+            content = MAPPER.writeValueAsBytes(contentNode);
+        } else {
+            writeError(index, id, "Invalid record: the content should be the definition as a string or an object");
+            return;
+        }
+        int validationLevel = defaultValidationLevel;
+        JsonNode levelNode = record.get("level");
+        if (levelNode != null && !levelNode.isNull()) {
+            validationLevel = levelNode.canConvertToInt() && levelNode.isIntegralNumber() ? levelNode.intValue() : -1;
+            if (validationLevel < 0 || validationLevel > 2) {
+                writeError(index, id, "Validation level should be 0, 1 or 2");
+                return;
+            }
+        }
+        submit(index, id, SwaggerFileContent.wrap(content, SwaggerTool.inFlightByteBudget), validationLevel);
+    }
+
+    /**
+     * @return the header line without the line break, or null at the end of the input
+     */
+    private static String readFrameHeader(InputStream frameInput) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        int character;
+        while ((character = frameInput.read()) != -1 && character != '\n') {
+            if (header.size() == MAX_FRAME_HEADER_LENGTH) {
+                throw new IOException("Frame header is longer than " + MAX_FRAME_HEADER_LENGTH + " bytes");
+            }
+            header.write(character);
+        }
+        if (character == -1 && header.size() == 0) {
+            return null;
+        }
+        return new String(header.toByteArray(), StandardCharsets.UTF_8).trim();
+    }
+
+    private void submit(long index, JsonNode id, SwaggerFileContent content, int validationLevel) {
+        acquireLineWindow();
+        try {
+            executor.execute(() -> {
+                ObjectNode resultNode;
+                try {
+                    resultNode = validate(index, id, content, validationLevel);
+                } catch (RuntimeException | Error e) {
+                    // An error line is written for the record, otherwise the ordered output would never move past it
+                    log.error("Error occurred while validating the swagger definition of the record " + index, e);
+                    resultNode = createErrorNode(index, id, "Error occurred while validating the swagger definition");
+                }
+                write(index, resultNode);
+            });
+        } catch (RuntimeException e) {
+            content.close();
+            throw e;
+        }
+    }
+
+    private ObjectNode validate(long index, JsonNode id, SwaggerFileContent content, int validationLevel) {
+        long startTime = System.nanoTime();
+        ValidationResult result = new ValidationResult();
+        result.totalFileCount++;
+        ByteBuffer swaggerContent = content.getContent();
+        long swaggerContentSize = swaggerContent.remaining();
+        boolean completed;
+        try {
+            completed = SwaggerTool.validateSwaggerFileContent(swaggerContent, validationLevel, result);
+        } finally {
+            content.close();
+        }
+        SwaggerTool.recordMetrics("record " + (id.isValueNode() ? id.asText() : id.toString()), swaggerContentSize,
+                startTime, result);
+        if (!completed) {
+            // The definition is counted as failed as for the files of a location, while the record is answered with
+            // an error line and the error is logged with its stack trace
+            log.error("Error occurred while validating the swagger definition of the record " + index);
+            result.publish(log, SwaggerTool.summary);
+            return createErrorNode(index, id, "Error occurred while validating the swagger definition");
+        }
+        // The log lines of the definition are written in its result line, hence only the counters are published
+        SwaggerTool.summary.add(result);
+        ObjectNode resultNode = MAPPER.createObjectNode();
+        resultNode.set("id", id);
+        resultNode.put("index", index);
+        resultNode.put("validationLevel", validationLevel);
+        resultNode.put("valid", result.getValidationSuccessFileCount() > 0
+                && result.getValidationFailedFileCount() == 0);
+        resultNode.setAll(result.toJson());
+        return resultNode;
+    }
+
+    /**
+     * @return number of records, which could not be read or validated, written as error lines
+     */
+    long getErrorLineCount() {
+        return errorLineCount.sum();
+    }
+
+    private void writeError(long index, JsonNode id, String message) {
+        acquireLineWindow();
+        write(index, createErrorNode(index, id, message));
+    }
+
+    private static ObjectNode createErrorNode(long index, JsonNode id, String message) {
+        ObjectNode errorNode = MAPPER.createObjectNode();
+        errorNode.set("id", id);
+        errorNode.put("index", index);
+        errorNode.put("error", message);
+        return errorNode;
+    }
+
+    private void acquireLineWindow() {
+        if (ordered) {
+            pendingLineWindow.acquireUninterruptibly();
+        }
+    }
+
+    /**
+     * Writes the result line of a record, or holds it until the results of the earlier records are written when the
+     * output is ordered.
+     */
+    private void write(long index, ObjectNode resultNode) {
+        if (resultNode.has("error")) {
+            errorLineCount.increment();
+        }
+        byte[] line;
+        try {
+            line = MAPPER.writeValueAsBytes(resultNode);
+        } catch (IOException e) {
+            log.error("Error occurred while writing the result of the record " + index, e);
+            line = MAPPER.createObjectNode().put("index", index).put("error", "Unable to write the result")
+                    .toString().getBytes(StandardCharsets.UTF_8);
+        }
+        synchronized (pendingLines) {
+            try {
+                if (!ordered) {
+                    writeLine(line);
+                } else {
+                    pendingLines.put(index, line);
+                    byte[] pendingLine;
+                    while ((pendingLine = pendingLines.remove(nextLineIndex)) != null) {
+                        writeLine(pendingLine);
+                        nextLineIndex++;
+                        pendingLineWindow.release();
+                    }
+                }
+                output.flush();
+            } catch (IOException e) {
+                if (!outputClosed) {
+                    // The reader of the results has gone away, hence the remaining records are not read
+                    log.error("Error occurred while writing the validation results, hence stopping the batch", e);
+                    outputClosed = true;
+                }
+            }
+        }
+    }
+
+    private void writeLine(byte[] line) throws IOException {
+        if (!outputClosed) {
+            output.write(line);
+            output.write('\n');
+        }
+    }
+}
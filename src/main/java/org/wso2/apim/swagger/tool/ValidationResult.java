@@ -0,0 +1,205 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of validating a single swagger/openAPI definition. The log lines and the summary counter updates of a
+ * definition are collected here while it is validated and published together once the validation completes, so the
+ * output of one definition is never interleaved with the output of another definition validated in parallel.
+ */
+public class ValidationResult {
+    private static final Object LOG_LOCK = new Object();
+
+    private final List<LogEntry> logEntries = new ArrayList<>();
+    int totalFileCount = 0;
+    int validationFailedFileCount = 0;
+    int validationSuccessFileCount = 0;
+    int totalMalformedSwaggerFiles = 0;
+    int totalPartialyPasedSwaggerFiles = 0;
+    int resourceLimitExceededFileCount = 0;
+    // Whether the outcome depends only on the content of the definition, so it can be reused for the same content
+    boolean cacheable = true;
+    // Timings of the validation phases, which are not part of the cached outcome
+    final PhaseTimings timings = new PhaseTimings();
+    // Resources used by the definition while it is validated, or null if the resources are not limited
+    ResourceLimits.Guard guard;
+
+    void info(String message) {
+        logEntries.add(new LogEntry(false, message, null));
+    }
+
+    void error(String message) {
+        logEntries.add(new LogEntry(true, message, null));
+    }
+
+    void error(String message, Throwable throwable) {
+        logEntries.add(new LogEntry(true, message, throwable));
+        cacheable = false;
+    }
+
+    /**
+     * Appends the log lines and the counters of another result, such as a result replayed from the cache.
+     *
+     * @param other result to append to this result
+     */
+    void append(ValidationResult other) {
+        logEntries.addAll(other.logEntries);
+        totalFileCount += other.totalFileCount;
+        validationFailedFileCount += other.validationFailedFileCount;
+        validationSuccessFileCount += other.validationSuccessFileCount;
+        totalMalformedSwaggerFiles += other.totalMalformedSwaggerFiles;
+        totalPartialyPasedSwaggerFiles += other.totalPartialyPasedSwaggerFiles;
+        resourceLimitExceededFileCount += other.resourceLimitExceededFileCount;
+        cacheable &= other.cacheable;
+    }
+
+    public List<LogEntry> getLogEntries() {
+        return Collections.unmodifiableList(logEntries);
+    }
+
+    public int getTotalFileCount() {
+        return totalFileCount;
+    }
+
+    public int getValidationFailedFileCount() {
+        return validationFailedFileCount;
+    }
+
+    public int getValidationSuccessFileCount() {
+        return validationSuccessFileCount;
+    }
+
+    public int getTotalMalformedSwaggerFiles() {
+        return totalMalformedSwaggerFiles;
+    }
+
+    public int getTotalPartialyPasedSwaggerFiles() {
+        return totalPartialyPasedSwaggerFiles;
+    }
+
+    public int getResourceLimitExceededFileCount() {
+        return resourceLimitExceededFileCount;
+    }
+
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    /**
+     * @return JSON representation of the counters and the log lines of this result
+     */
+    public ObjectNode toJson() {
+        ObjectNode resultNode = JsonNodeFactory.instance.objectNode();
+        resultNode.put("totalFileCount", totalFileCount);
+        resultNode.put("validationFailedFileCount", validationFailedFileCount);
+        resultNode.put("validationSuccessFileCount", validationSuccessFileCount);
+        resultNode.put("totalMalformedSwaggerFiles", totalMalformedSwaggerFiles);
+        resultNode.put("totalPartialyPasedSwaggerFiles", totalPartialyPasedSwaggerFiles);
+        resultNode.put("resourceLimitExceededFileCount", resourceLimitExceededFileCount);
+        ArrayNode logNodes = resultNode.putArray("log");
+        for (LogEntry entry : logEntries) {
+            logNodes.addObject().put("level", entry.isError() ? "ERROR" : "INFO").put("message", entry.getMessage());
+        }
+        return resultNode;
+    }
+
+    /**
+     * @param resultNode JSON representation created by {@link #toJson()}
+     * @return result with the counters and the log lines of the given JSON
+     */
+    public static ValidationResult fromJson(JsonNode resultNode) {
+        ValidationResult result = new ValidationResult();
+        result.totalFileCount = resultNode.path("totalFileCount").asInt();
+        result.validationFailedFileCount = resultNode.path("validationFailedFileCount").asInt();
+        result.validationSuccessFileCount = resultNode.path("validationSuccessFileCount").asInt();
+        result.totalMalformedSwaggerFiles = resultNode.path("totalMalformedSwaggerFiles").asInt();
+        result.totalPartialyPasedSwaggerFiles = resultNode.path("totalPartialyPasedSwaggerFiles").asInt();
+        result.resourceLimitExceededFileCount = resultNode.path("resourceLimitExceededFileCount").asInt();
+        for (JsonNode logNode : resultNode.path("log")) {
+            if ("ERROR".equals(logNode.path("level").asText())) {
+                result.error(logNode.path("message").asText());
+            } else {
+                result.info(logNode.path("message").asText());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds the counters of this result to the given summary and writes the collected log lines as one block.
+     *
+     * @param log     logger to write the collected log lines to
+     * @param summary summary to add the counters of this result to
+     */
+    public void publish(Logger log, ValidationSummary summary) {
+        summary.add(this);
+        synchronized (LOG_LOCK) {
+            for (LogEntry entry : logEntries) {
+                if (entry.isError()) {
+                    if (entry.getThrowable() != null) {
+                        log.error(entry.getMessage(), entry.getThrowable());
+                    } else {
+                        log.error(entry.getMessage());
+                    }
+                } else {
+                    log.info(entry.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * A single log line recorded while validating a definition.
+     */
+    public static class LogEntry {
+        private final boolean error;
+        private final String message;
+        private final Throwable throwable;
+
+        LogEntry(boolean error, String message, Throwable throwable) {
+            this.error = error;
+            this.message = message;
+            this.throwable = throwable;
+        }
+
+        public boolean isError() {
+            return error;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public Throwable getThrowable() {
+            return throwable;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Persistent cache of validation results, keyed by the content hash of the definition, the validation level, the
+ * resource limits and the versions of the swagger parsers. Unchanged definitions replay the cached log lines and
+ * counters instead of being validated again. The cache keeps the most recently used entries up to the configured size
+ * and is stored as a single JSON file in the cache directory. The file is only written when results were added, and it
+ * is merged with the results written by other processes meanwhile, so processes sharing the cache directory keep each
+ * other's results.
+ */
+class ValidationResultCache {
+    private static final Logger log = LoggerFactory.getLogger(ValidationResultCache.class);
+    private static final String CACHE_FILE_NAME = "validation-result-cache.json";
+    private static final String LOCK_FILE_NAME = "validation-result-cache.lock";
+    private static final int CACHE_FORMAT_VERSION = 3;
+    private static final String PARSER_VERSIONS = getParserVersion("io.swagger.parser.v3", "swagger-parser-v3")
+            + "/" + getParserVersion("io.swagger", "swagger-parser");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Path cacheFile;
+    private final int maxEntries;
+    private final Map<String, ValidationResult> entries;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    // Guarded by the entries
+    private boolean changed = false;
+    private boolean cleared = false;
+
+    private ValidationResultCache(Path cacheFile, int maxEntries) {
+        this.cacheFile = cacheFile;
+        this.maxEntries = maxEntries;
+        this.entries = newEntryMap(maxEntries);
+    }
+
+    /**
+     * @return map of the entries from the least to the most recently used, which evicts the least recently used entry
+     * when it has more than the given number of entries
+     */
+    private static Map<String, ValidationResult> newEntryMap(int maxEntries) {
+        return new LinkedHashMap<String, ValidationResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ValidationResult> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param cacheDirectory directory to store the cache file
+     * @param maxEntries     maximum number of results kept in the cache
+     * @param clear          whether to discard the existing cache entries
+     * @return cache loaded from the cache directory
+     */
+    static ValidationResultCache load(Path cacheDirectory, int maxEntries, boolean clear) {
+        ValidationResultCache cache = new ValidationResultCache(cacheDirectory.resolve(CACHE_FILE_NAME), maxEntries);
+        if (clear) {
+            log.info("Clearing the validation result cache at " + cache.cacheFile);
+            cache.cleared = true;
+            cache.changed = true;
+        } else if (Files.isRegularFile(cache.cacheFile)) {
+            cache.read();
+        }
+        return cache;
+    }
+
+    /**
+     * @param swaggerFileContent UTF-8 encoded swagger file content to be validated
+     * @param validationLevel    validation level [0,1,2]
+     * @param limits             resource limits the definition is validated within
+     * @return cache key of the given definition, validation level and resource limits
+     */
+    String getKey(ByteBuffer swaggerFileContent, int validationLevel, ResourceLimits limits) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(swaggerFileContent.duplicate());
+            StringBuilder keyBuilder = new StringBuilder();
+            for (byte hashByte : digest.digest()) {
+                keyBuilder.append(String.format("%02x", hashByte));
+            }
+            keyBuilder.append(':').append(validationLevel);
+            if (limits.isEnabled()) {
+                // A result produced within looser limits may exceed the limits of the current run
+                keyBuilder.append(':').append(limits.getKey());
+            }
+            return keyBuilder.append(':').append(PARSER_VERSIONS).toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by the Java runtime", e);
+        }
+    }
+
+    ValidationResult get(String key) {
+        ValidationResult cachedResult;
+        synchronized (entries) {
+            cachedResult = entries.get(key);
+        }
+        if (cachedResult != null) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+        return cachedResult;
+    }
+
+    void put(String key, ValidationResult result) {
+        synchronized (entries) {
+            entries.put(key, result);
+            changed = true;
+        }
+    }
+
+    long getHitCount() {
+        return hitCount.sum();
+    }
+
+    long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Writes the cache entries to the cache file, from the least to the most recently used entry, when results were
+     * added since the cache was loaded. The cache file is locked while the results written by other processes since
+     * then are read and merged, as less recently used than the results of this process, and the file is replaced.
+     */
+    void save() {
+        Map<String, ValidationResult> savedEntries;
+        boolean clearedEntries;
+        synchronized (entries) {
+            if (!changed) {
+                return;
+            }
+            savedEntries = new LinkedHashMap<>(entries);
+            clearedEntries = cleared;
+            changed = false;
+            cleared = false;
+        }
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            try (FileChannel lockChannel = FileChannel.open(cacheFile.resolveSibling(LOCK_FILE_NAME),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // The lock is released when the channel is closed
+                lockChannel.lock();
+                Map<String, ValidationResult> mergedEntries = newEntryMap(maxEntries);
+                if (!clearedEntries && Files.isRegularFile(cacheFile)) {
+                    try {
+                        readEntries(mergedEntries);
+                    } catch (IOException e) {
+                        log.error("Error occurred while reading the validation result cache from " + cacheFile
+                                + ", hence the cache will be replaced", e);
+                        mergedEntries.clear();
+                    }
+                }
+                mergedEntries.putAll(savedEntries);
+                writeEntries(mergedEntries);
+            }
+        } catch (IOException e) {
+            log.error("Error occurred while writing the validation result cache to " + cacheFile, e);
+        }
+    }
+
+    private void writeEntries(Map<String, ValidationResult> savedEntries) throws IOException {
+        ObjectNode root = mapper.createObjectNode();
+        root.put("version", CACHE_FORMAT_VERSION);
+        ArrayNode entryNodes = root.putArray("entries");
+        for (Map.Entry<String, ValidationResult> entry : savedEntries.entrySet()) {
+            entryNodes.addObject().put("key", entry.getKey()).set("result", entry.getValue().toJson());
+        }
+        Path tempFile = Files.createTempFile(cacheFile.getParent(), CACHE_FILE_NAME, ".tmp");
+        try {
+            mapper.writeValue(tempFile.toFile(), root);
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private void read() {
+        try {
+            readEntries(entries);
+        } catch (IOException e) {
+            log.error("Error occurred while reading the validation result cache from " + cacheFile
+                    + ", hence the cache will be rebuilt", e);
+            entries.clear();
+        }
+    }
+
+    private void readEntries(Map<String, ValidationResult> targetEntries) throws IOException {
+        JsonNode root = mapper.readTree(cacheFile.toFile());
+        if (root.path("version").asInt() != CACHE_FORMAT_VERSION) {
+            log.info("Ignoring the validation result cache at " + cacheFile + " since it has a different format");
+            return;
+        }
+        for (JsonNode entryNode : root.path("entries")) {
+            targetEntries.put(entryNode.path("key").asText(), ValidationResult.fromJson(entryNode.path("result")));
+        }
+    }
+
+    private static String getParserVersion(String groupId, String artifactId) {
+        String propertiesPath = "/META-INF/maven/" + groupId + "/" + artifactId + "/pom.properties";
+        try (InputStream inputStream = ValidationResultCache.class.getResourceAsStream(propertiesPath)) {
+            if (inputStream != null) {
+                Properties properties = new Properties();
+                properties.load(inputStream);
+                return properties.getProperty("version", "unknown");
+            }
+        } catch (IOException e) {
+            log.debug("Unable to read the version of " + artifactId, e);
+        }
+        return "unknown";
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Long running validation server. A single resident process keeps the parsers loaded and warmed up, and validates the
+ * definitions posted to it over HTTP.
+ * <p>
+ * POST /validate?level=[0|1|2] validates the definition in the request body and returns the result as JSON.
+ * GET /health returns the status of the server and GET /metrics returns the request and validation counters.
+ * <p>
+ * The definitions are validated on a fixed number of workers with a bounded queue. When the queue is full the request
+ * is rejected with 503 before its body is read, so the clients can back off and retry. The requests are handled by a
+ * bounded number of threads, a request body larger than the configured size is rejected with 413, and the bodies
+ * reserve their size from the in-flight byte budget while they are held in memory.
+ */
+class ValidationServer {
+    private static final Logger log = LoggerFactory.getLogger(ValidationServer.class);
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+    private static final String WARM_UP_OPENAPI = "{\"openapi\":\"3.0.1\",\"info\":{\"title\":\"WarmUp\"," +
+            "\"version\":\"1.0\"},\"paths\":{\"/ping\":{\"get\":{\"responses\":{\"200\":{\"description\":\"OK\"," +
+            "\"content\":{\"application/json\":{\"schema\":{\"$ref\":\"#/components/schemas/Pong\"}}}}}}}}," +
+            "\"components\":{\"schemas\":{\"Pong\":{\"type\":\"object\"}}}}";
+    private static final String WARM_UP_SWAGGER = "swagger: '2.0'\ninfo:\n  title: WarmUp\n  version: '1.0'\n" +
+            "paths:\n  /ping:\n    get:\n      responses:\n        200:\n          description: OK\n";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ValidationSummary summary = new ValidationSummary();
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder rejectedRequestCount = new LongAdder();
+    private final LongAdder failedRequestCount = new LongAdder();
+    private final int defaultValidationLevel;
+    private final long maxRequestBytes;
+    private final ThreadPoolExecutor validationExecutor;
+    private final ExecutorService requestExecutor;
+    private final HttpServer httpServer;
+
+    /**
+     * @param host                   address to listen on
+     * @param port                   port to listen on
+     * @param threadCount            number of definitions validated concurrently
+     * @param queueSize              number of requests waiting for a worker before the requests are rejected
+     * @param defaultValidationLevel validation level used when the request does not specify one
+     * @param maxRequestBytes        maximum size of a request body in bytes
+     * @throws IOException if the server cannot be bound to the given address
+     */
+    ValidationServer(String host, int port, int threadCount, int queueSize, int defaultValidationLevel,
+                     long maxRequestBytes) throws IOException {
+        this.defaultValidationLevel = defaultValidationLevel;
+        this.maxRequestBytes = maxRequestBytes;
+        AtomicInteger workerIndex = new AtomicInteger();
+        this.validationExecutor = new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+            Thread thread = new Thread(runnable, "swagger-validator-" + workerIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        // A request thread waits for each validation running or queued, and the spare threads answer the health and
+        // metrics requests and reject the requests while the queue is full. The pending connections wait unread.
+        AtomicInteger requestThreadIndex = new AtomicInteger();
+        this.requestExecutor = Executors.newFixedThreadPool(threadCount + queueSize + 2, runnable -> {
+            Thread thread = new Thread(runnable, "swagger-validator-request-" + requestThreadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpServer = HttpServer.create(new InetSocketAddress(host, port), 0);
+        httpServer.setExecutor(requestExecutor);
+        httpServer.createContext("/validate", this::handleValidate);
+        httpServer.createContext("/health", this::handleHealth);
+        httpServer.createContext("/metrics", this::handleMetrics);
+    }
+
+    /**
+     * Warms up the parsers and starts accepting requests.
+     */
+    void start() {
+        warmUp();
+        httpServer.start();
+        log.info("Swagger validation server started on " + httpServer.getAddress());
+    }
+
+    /**
+     * Stops accepting requests and waits for the in-flight validations to complete.
+     */
+    void stop() {
+        httpServer.stop(1);
+        validationExecutor.shutdown();
+        requestExecutor.shutdown();
+        try {
+            validationExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Swagger validation server stopped. " + summary);
+    }
+
+    /**
+     * Validates small OpenAPI 3 and Swagger 2 definitions, so the parser classes are loaded and the validation path
+     * is compiled before the first request arrives.
+     */
+    private void warmUp() {
+        for (int i = 0; i < 3; i++) {
+            for (int validationLevel = 0; validationLevel <= 2; validationLevel++) {
+                SwaggerTool.validateSwaggerDefinition(WARM_UP_OPENAPI, validationLevel, new ValidationResult());
+                SwaggerTool.validateSwaggerDefinition(WARM_UP_SWAGGER, validationLevel, new ValidationResult());
+            }
+        }
+    }
+
+    private void handleValidate(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Only POST is supported");
+                return;
+            }
+            requestCount.increment();
+            int validationLevel = getValidationLevel(exchange.getRequestURI().getRawQuery());
+            if (validationLevel < 0 || validationLevel > 2) {
+                failedRequestCount.increment();
+                sendError(exchange, 400, "Validation level should be 0, 1 or 2");
+                return;
+            }
+            long contentLength = getContentLength(exchange);
+            if (contentLength > maxRequestBytes) {
+                failedRequestCount.increment();
+                sendError(exchange, 413, "Request body exceeds the limit of " + maxRequestBytes + " bytes");
+                return;
+            }
+            if (validationExecutor.getQueue().remainingCapacity() == 0) {
+                // The body is left unread, so the rejected requests do not take up memory
+                sendQueueFull(exchange);
+                return;
+            }
+            SwaggerFileContent swaggerContent = readBody(exchange.getRequestBody(), contentLength);
+            if (swaggerContent == null) {
+                failedRequestCount.increment();
+                sendError(exchange, 413, "Request body exceeds the limit of " + maxRequestBytes + " bytes");
+                return;
+            }
+            Future<ValidationResult> futureResult;
+            try {
+                futureResult = validationExecutor.submit(() -> {
+                    ValidationResult result = new ValidationResult();
+                    result.totalFileCount++;
+                    try {
+                        // A definition failing the parsers is answered and counted as a failed file, as in a location
+                        SwaggerTool.validateSwaggerFileContent(swaggerContent.getContent(), validationLevel, result);
+                    } finally {
+                        swaggerContent.close();
+                    }
+                    result.publish(log, summary);
+                    return result;
+                });
+            } catch (RejectedExecutionException e) {
+                swaggerContent.close();
+                sendQueueFull(exchange);
+                return;
+            }
+            ValidationResult result;
+            try {
+                result = futureResult.get();
+            } catch (ExecutionException e) {
+                failedRequestCount.increment();
+                log.error("Error occurred while validating the swagger definition", e.getCause());
+                sendError(exchange, 500, "Error occurred while validating the swagger definition");
+                return;
+            }
+            ObjectNode responseNode = result.toJson();
+            responseNode.put("validationLevel", validationLevel);
+            responseNode.put("valid", result.getValidationSuccessFileCount() > 0
+                    && result.getValidationFailedFileCount() == 0);
+            sendJson(exchange, 200, responseNode);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sendError(exchange, 503, "Server is shutting down");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        try {
+            ObjectNode responseNode = mapper.createObjectNode();
+            responseNode.put("status", validationExecutor.isShutdown() ? "DOWN" : "UP");
+            sendJson(exchange, 200, responseNode);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            ObjectNode responseNode = mapper.createObjectNode();
+            responseNode.put("requestCount", requestCount.sum());
+            responseNode.put("rejectedRequestCount", rejectedRequestCount.sum());
+            responseNode.put("failedRequestCount", failedRequestCount.sum());
+            responseNode.put("activeValidations", validationExecutor.getActiveCount());
+            responseNode.put("queuedValidations", validationExecutor.getQueue().size());
+            responseNode.put("queueCapacity", validationExecutor.getQueue().size()
+                    + validationExecutor.getQueue().remainingCapacity());
+            responseNode.put("totalFileCount", summary.getTotalFileCount());
+            responseNode.put("validationSuccessFileCount", summary.getValidationSuccessFileCount());
+            responseNode.put("validationFailedFileCount", summary.getValidationFailedFileCount());
+            responseNode.put("totalMalformedSwaggerFiles", summary.getTotalMalformedSwaggerFiles());
+            responseNode.put("totalPartialyPasedSwaggerFiles", summary.getTotalPartialyPasedSwaggerFiles());
+            responseNode.put("resourceLimitExceededFileCount", summary.getResourceLimitExceededFileCount());
+            ValidationResultCache cache = SwaggerTool.resultCache;
+            if (cache != null) {
+                responseNode.put("cacheHitCount", cache.getHitCount());
+                responseNode.put("cacheMissCount", cache.getMissCount());
+            }
+            sendJson(exchange, 200, responseNode);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private int getValidationLevel(String rawQuery) throws IOException {
+        if (rawQuery != null) {
+            for (String parameter : rawQuery.split("&")) {
+                String[] nameAndValue = parameter.split("=", 2);
+                if ("level".equals(nameAndValue[0]) && nameAndValue.length == 2) {
+                    try {
+                        return Integer.parseInt(URLDecoder.decode(nameAndValue[1], "UTF-8"));
+                    } catch (NumberFormatException e) {
+                        return -1;
+                    }
+                }
+            }
+        }
+        return defaultValidationLevel;
+    }
+
+    /**
+     * @return length of the request body, or -1 if the body is sent in chunks
+     */
+    private static long getContentLength(HttpExchange exchange) {
+        String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (contentLength != null) {
+            try {
+                return Long.parseLong(contentLength.trim());
+            } catch (NumberFormatException e) {
+                // The HTTP server rejects the request before it is handled
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads the request body, reserving its size from the in-flight byte budget. The size of a body sent in chunks is
+     * reserved once the body is read.
+     *
+     * @param inputStream   request body
+     * @param contentLength length of the request body, or -1 if the body is sent in chunks
+     * @return content of the request body, or null if the body exceeds the maximum request size
+     * @throws IOException if the body cannot be read
+     */
+    private SwaggerFileContent readBody(InputStream inputStream, long contentLength) throws IOException {
+        if (contentLength >= 0) {
+            return SwaggerFileContent.read(inputStream, contentLength, SwaggerTool.inFlightByteBudget);
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int length;
+        while ((length = inputStream.read(buffer)) != -1) {
+            if (outputStream.size() + length > maxRequestBytes) {
+                return null;
+            }
+            outputStream.write(buffer, 0, length);
+        }
+        return SwaggerFileContent.wrap(outputStream.toByteArray(), SwaggerTool.inFlightByteBudget);
+    }
+
+    private void sendQueueFull(HttpExchange exchange) throws IOException {
+        rejectedRequestCount.increment();
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        sendError(exchange, 503, "Validation queue is full, please retry later");
+    }
+
+    private void sendError(HttpExchange exchange, int statusCode, String message) throws IOException {
+        ObjectNode responseNode = mapper.createObjectNode();
+        responseNode.put("error", message);
+        sendJson(exchange, statusCode, responseNode);
+    }
+
+    private void sendJson(HttpExchange exchange, int statusCode, ObjectNode responseNode) throws IOException {
+        byte[] response = mapper.writeValueAsBytes(responseNode);
+        exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+        exchange.sendResponseHeaders(statusCode, response.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(response);
+        }
+    }
+}
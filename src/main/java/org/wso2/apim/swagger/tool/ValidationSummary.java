@@ -0,0 +1,129 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregated counters of a validation run. Results of definitions validated in parallel are added without locking,
+ * and the totals are exact once all the results have been added.
+ */
+public class ValidationSummary {
+    private final LongAdder totalFileCount = new LongAdder();
+    private final LongAdder validationFailedFileCount = new LongAdder();
+    private final LongAdder validationSuccessFileCount = new LongAdder();
+    private final LongAdder totalMalformedSwaggerFiles = new LongAdder();
+    private final LongAdder totalPartialyPasedSwaggerFiles = new LongAdder();
+    private final LongAdder resourceLimitExceededFileCount = new LongAdder();
+
+    /**
+     * @param result validation result of a single definition
+     */
+    public void add(ValidationResult result) {
+        totalFileCount.add(result.getTotalFileCount());
+        validationFailedFileCount.add(result.getValidationFailedFileCount());
+        validationSuccessFileCount.add(result.getValidationSuccessFileCount());
+        totalMalformedSwaggerFiles.add(result.getTotalMalformedSwaggerFiles());
+        totalPartialyPasedSwaggerFiles.add(result.getTotalPartialyPasedSwaggerFiles());
+        resourceLimitExceededFileCount.add(result.getResourceLimitExceededFileCount());
+    }
+
+    /**
+     * @param other summary to add to this summary, such as the summary of a shard
+     */
+    public void add(ValidationSummary other) {
+        totalFileCount.add(other.getTotalFileCount());
+        validationFailedFileCount.add(other.getValidationFailedFileCount());
+        validationSuccessFileCount.add(other.getValidationSuccessFileCount());
+        totalMalformedSwaggerFiles.add(other.getTotalMalformedSwaggerFiles());
+        totalPartialyPasedSwaggerFiles.add(other.getTotalPartialyPasedSwaggerFiles());
+        resourceLimitExceededFileCount.add(other.getResourceLimitExceededFileCount());
+    }
+
+    /**
+     * @return JSON representation of the counters, with the same field names as {@link ValidationResult#toJson()}
+     */
+    public ObjectNode toJson() {
+        ObjectNode summaryNode = JsonNodeFactory.instance.objectNode();
+        summaryNode.put("totalFileCount", getTotalFileCount());
+        summaryNode.put("validationFailedFileCount", getValidationFailedFileCount());
+        summaryNode.put("validationSuccessFileCount", getValidationSuccessFileCount());
+        summaryNode.put("totalMalformedSwaggerFiles", getTotalMalformedSwaggerFiles());
+        summaryNode.put("totalPartialyPasedSwaggerFiles", getTotalPartialyPasedSwaggerFiles());
+        summaryNode.put("resourceLimitExceededFileCount", getResourceLimitExceededFileCount());
+        return summaryNode;
+    }
+
+    /**
+     * @param summaryNode JSON representation created by {@link #toJson()}
+     * @return summary with the counters of the given JSON
+     */
+    public static ValidationSummary fromJson(JsonNode summaryNode) {
+        ValidationSummary summary = new ValidationSummary();
+        summary.totalFileCount.add(summaryNode.path("totalFileCount").asLong());
+        summary.validationFailedFileCount.add(summaryNode.path("validationFailedFileCount").asLong());
+        summary.validationSuccessFileCount.add(summaryNode.path("validationSuccessFileCount").asLong());
+        summary.totalMalformedSwaggerFiles.add(summaryNode.path("totalMalformedSwaggerFiles").asLong());
+        summary.totalPartialyPasedSwaggerFiles.add(summaryNode.path("totalPartialyPasedSwaggerFiles").asLong());
+        summary.resourceLimitExceededFileCount.add(summaryNode.path("resourceLimitExceededFileCount").asLong());
+        return summary;
+    }
+
+    public long getTotalFileCount() {
+        return totalFileCount.sum();
+    }
+
+    public long getValidationFailedFileCount() {
+        return validationFailedFileCount.sum();
+    }
+
+    public long getValidationSuccessFileCount() {
+        return validationSuccessFileCount.sum();
+    }
+
+    public long getTotalMalformedSwaggerFiles() {
+        return totalMalformedSwaggerFiles.sum();
+    }
+
+    public long getTotalPartialyPasedSwaggerFiles() {
+        return totalPartialyPasedSwaggerFiles.sum();
+    }
+
+    public long getResourceLimitExceededFileCount() {
+        return resourceLimitExceededFileCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        String summary = "Summery --- Total Files Processed: " + getTotalFileCount() + ". Total Successful Files Count "
+                + getValidationSuccessFileCount() + ". Total Failed Files Count: " + getValidationFailedFileCount()
+                + ". " + "Total Malformed Swagger File Count: " + getTotalMalformedSwaggerFiles();
+        // The count is only shown when resource limits aborted a validation, so the summary is unchanged otherwise
+        if (getResourceLimitExceededFileCount() > 0) {
+            summary += ". Total Resource Limit Exceeded File Count: " + getResourceLimitExceededFileCount();
+        }
+        return summary;
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a location for changes and validates the swagger files created or modified in it, so the parsers stay warm
+ * and only the edited files are validated again. The events are debounced, hence a burst of events written by an
+ * editor results in a single validation of each changed file. The latest result of each file is kept, and the summary
+ * of all the files is written after each validation.
+ */
+class ValidationWatcher {
+    private static final Logger log = LoggerFactory.getLogger(ValidationWatcher.class);
+
+    private final Path location;
+    private final Path watchedFile;
+    private final int validationLevel;
+    private final ValidationExecutor executor;
+    private final long debounceMillis;
+    private final Map<Path, ValidationResult> results = new ConcurrentHashMap<>();
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+
+    /**
+     * @param location        swagger file or directory to watch
+     * @param validationLevel validation level [0,1,2]
+     * @param executor        executor to run the validation of each swagger file
+     * @param debounceMillis  time to wait for further events before validating the changed files
+     */
+    ValidationWatcher(Path location, int validationLevel, ValidationExecutor executor, long debounceMillis) {
+        Path absoluteLocation = location.toAbsolutePath().normalize();
+        // A single file is watched through the events of its directory
+        this.watchedFile = Files.isRegularFile(absoluteLocation) ? absoluteLocation : null;
+        this.location = watchedFile != null ? absoluteLocation.getParent() : absoluteLocation;
+        this.validationLevel = validationLevel;
+        this.executor = executor;
+        this.debounceMillis = debounceMillis;
+    }
+
+    /**
+     * Validates all the files of the location and then validates the changed files, until the thread is interrupted.
+     *
+     * @throws IOException          if the location cannot be watched
+     * @throws InterruptedException if the thread is interrupted while waiting for changes
+     */
+    void run() throws IOException, InterruptedException {
+        if (!Files.isDirectory(location)) {
+            log.error("Error occurred while reading the provided file/folder, please verify the file/folder " +
+                    "availability");
+            return;
+        }
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            // The directories are registered before the first pass, so the files changed meanwhile are not missed
+            register(watchService, location);
+            validateAll();
+            log.info("Watching " + (watchedFile != null ? watchedFile : location) + " for changes");
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<Path> changedPaths = new LinkedHashSet<>();
+                boolean overflow = processEvents(watchService, watchService.take(), changedPaths);
+                WatchKey key;
+                while ((key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    overflow |= processEvents(watchService, key, changedPaths);
+                }
+                if (overflow) {
+                    log.info("Some changes were not reported by the file system, hence validating all the files");
+                    validateAll();
+                } else if (!changedPaths.isEmpty()) {
+                    validateChanged(changedPaths);
+                }
+            }
+        }
+    }
+
+    private void validateAll() {
+        results.clear();
+        clearExternalRefCache();
+        String url = (watchedFile != null ? watchedFile : location).toString();
+        SwaggerTool.validateSwaggerFromLocation(url, validationLevel, executor,
+                (path, result) -> results.put(path.toAbsolutePath().normalize(), result));
+        executor.awaitCompletion();
+        logSummary();
+    }
+
+    private void validateChanged(Set<Path> changedPaths) {
+        clearExternalRefCache();
+        int validatedFileCount = 0;
+        for (Path path : changedPaths) {
+            if (!Files.exists(path)) {
+                // Deleted files and directories are removed from the summary
+                results.keySet().removeIf(resultPath -> resultPath.startsWith(path));
+            } else if (Files.isRegularFile(path) && SwaggerArchive.isArchive(path)) {
+                // The entries of the archive are validated again, and the entries no longer in it are removed
+                validatedFileCount++;
+                results.keySet().removeIf(resultPath -> resultPath.startsWith(path));
+                SwaggerTool.validateSwaggerFromLocation(path.toString(), validationLevel, executor, results::put);
+            } else if (Files.isRegularFile(path)) {
+                validatedFileCount++;
+                executor.execute(() -> validate(path));
+            }
+        }
+        executor.awaitCompletion();
+        log.info("Validated " + validatedFileCount + " changed file(s)");
+        logSummary();
+    }
+
+    private void validate(Path path) {
+        try {
+            results.put(path, SwaggerTool.validateSwaggerFile(path, validationLevel));
+        } catch (RuntimeException e) {
+            // The watcher keeps running when a definition cannot be validated
+            results.remove(path);
+            log.error("Error occurred while validating the swagger file " + path, e);
+        }
+    }
+
+    /**
+     * @return whether events were lost and all the files have to be validated again
+     */
+    private boolean processEvents(WatchService watchService, WatchKey key, Set<Path> changedPaths) {
+        Path directory = watchedDirectories.get(key);
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+                continue;
+            }
+            if (directory == null) {
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (watchedFile != null && !watchedFile.equals(path)) {
+                continue;
+            }
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                try {
+                    register(watchService, path);
+                    addFiles(path, changedPaths);
+                } catch (IOException e) {
+                    log.error("Error occurred while watching the folder " + path, e);
+                }
+            } else {
+                changedPaths.add(path);
+            }
+        }
+        if (!key.reset()) {
+            watchedDirectories.remove(key);
+        }
+        return overflow;
+    }
+
+    private void register(WatchService watchService, Path directory) throws IOException {
+        if (watchedFile != null) {
+            watchedDirectories.put(directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE), directory);
+            return;
+        }
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path subDirectory, BasicFileAttributes attributes)
+                    throws IOException {
+                watchedDirectories.put(subDirectory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE), subDirectory);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Adds the files of a directory created after the directories were registered, such as a copied folder.
+     */
+    private static void addFiles(Path directory, Set<Path> changedPaths) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile()) {
+                    changedPaths.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static void clearExternalRefCache() {
+        // A changed file may be referred by the other definitions, hence the referred files are loaded again
+        ExternalRefCache externalRefCache = SwaggerTool.externalRefCache;
+        if (externalRefCache != null) {
+            externalRefCache.clear();
+        }
+    }
+
+    private void logSummary() {
+        ValidationSummary runningSummary = new ValidationSummary();
+        for (ValidationResult result : results.values()) {
+            runningSummary.add(result);
+        }
+        log.info(runningSummary.toString());
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ *
+ *   Copyright (c) 2022, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.wso2.apim.swagger.tool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipException;
+
+import static org.junit.Assert.assertEquals;
+
+public class SwaggerArchiveTest {
+    private static final String DEFINITION = "{\"swagger\":\"2.0\",\"info\":{\"title\":\"t\"},\"paths\":{}}";
+    private static final String LONG_PATH = "apis/" + repeat("a", 120) + "/swagger.json";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testPaxPath() throws IOException {
+        TarBuilder tar = new TarBuilder();
+        tar.addEntry("PaxHeaders/swagger.json", 'x', paxRecord("path", LONG_PATH), false);
+        tar.addEntry("truncated-name.json", '0', DEFINITION.getBytes(StandardCharsets.UTF_8), false);
+        assertEquals(singleEntry(LONG_PATH), readEntries(tar.write("pax.tar")));
+    }
+
+    @Test
+    public void testGnuLongName() throws IOException {
+        TarBuilder tar = new TarBuilder();
+        tar.addEntry("././@LongLink", 'L', (LONG_PATH + "\0").getBytes(StandardCharsets.UTF_8), false);
+        tar.addEntry("truncated-name.json", '0', DEFINITION.getBytes(StandardCharsets.UTF_8), false);
+        assertEquals(singleEntry(LONG_PATH), readEntries(tar.write("gnu.tar")));
+    }
+
+    @Test
+    public void testBase256Size() throws IOException {
+        TarBuilder tar = new TarBuilder();
+        tar.addEntry("./swagger.json", '0', DEFINITION.getBytes(StandardCharsets.UTF_8), true);
+        assertEquals(singleEntry("swagger.json"), readEntries(tar.write("base256.tar")));
+    }
+
+    @Test(expected = EOFException.class)
+    public void testTruncatedTar() throws IOException {
+        TarBuilder tar = new TarBuilder();
+        tar.addEntry("swagger.json", '0', DEFINITION.getBytes(StandardCharsets.UTF_8), false);
+        byte[] archive = tar.toByteArray();
+        // Cut the archive in the middle of the content of the entry
+        Path path = temporaryFolder.getRoot().toPath().resolve("truncated.tar");
+        Files.write(path, Arrays.copyOf(archive, 512 + DEFINITION.length() / 2));
+        readEntries(path);
+    }
+
+    @Test(expected = ZipException.class)
+    public void testRenamedNonZip() throws IOException {
+        Path path = temporaryFolder.getRoot().toPath().resolve("swagger.zip");
+        Files.write(path, DEFINITION.getBytes(StandardCharsets.UTF_8));
+        readEntries(path);
+    }
+
+    private static Map<String, String> readEntries(Path archivePath) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        SwaggerArchive.forEachEntry(archivePath, new InFlightByteBudget(1024 * 1024), entryPath -> true,
+                (entryPath, content) -> {
+                    try (SwaggerFileContent entryContent = content) {
+                        ByteBuffer buffer = entryContent.getContent();
+                        byte[] bytes = new byte[buffer.remaining()];
+                        buffer.get(bytes);
+                        entries.put(entryPath, new String(bytes, StandardCharsets.UTF_8));
+                    }
+                });
+        return entries;
+    }
+
+    private static Map<String, String> singleEntry(String entryPath) {
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put(entryPath, DEFINITION);
+        return entries;
+    }
+
+    /**
+     * @return pax extended header record, whose length includes the length field itself
+     */
+    private static byte[] paxRecord(String key, String value) {
+        String record = " " + key + "=" + value + "\n";
+        int length = record.length();
+        while (length != String.valueOf(length).length() + record.length()) {
+            length = String.valueOf(length).length() + record.length();
+        }
+        return (length + record).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String repeat(String value, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Writes ustar archives with the header fields needed by the tests.
+     */
+    private class TarBuilder {
+        private final ByteArrayOutputStream archive = new ByteArrayOutputStream();
+
+        void addEntry(String name, char type, byte[] data, boolean base256Size) {
+            byte[] header = new byte[512];
+            byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            System.arraycopy(nameBytes, 0, header, 0, Math.min(nameBytes.length, 100));
+            putOctal(header, 100, 8, 0644);
+            if (base256Size) {
+                header[124] = (byte) 0x80;
+                for (int i = 0; i < 8; i++) {
+                    header[135 - i] = (byte) ((long) data.length >>> (8 * i));
+                }
+            } else {
+                putOctal(header, 124, 12, data.length);
+            }
+            header[156] = (byte) type;
+            System.arraycopy("ustar\0".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 6);
+            header[263] = '0';
+            header[264] = '0';
+            // The checksum is computed with the checksum field filled with spaces
+            Arrays.fill(header, 148, 156, (byte) ' ');
+            int checksum = 0;
+            for (byte value : header) {
+                checksum += value & 0xff;
+            }
+            putOctal(header, 148, 7, checksum);
+            archive.write(header, 0, header.length);
+            archive.write(data, 0, data.length);
+            int padding = (512 - data.length % 512) % 512;
+            archive.write(new byte[padding], 0, padding);
+        }
+
+        byte[] toByteArray() {
+            return archive.toByteArray();
+        }
+
+        Path write(String fileName) throws IOException {
+            archive.write(new byte[1024], 0, 1024);
+            Path path = temporaryFolder.getRoot().toPath().resolve(fileName);
+            Files.write(path, archive.toByteArray());
+            return path;
+        }
+
+        private void putOctal(byte[] header, int offset, int length, long value) {
+            String octal = Long.toOctalString(value);
+            StringBuilder field = new StringBuilder();
+            for (int i = octal.length(); i < length - 1; i++) {
+                field.append('0');
+            }
+            field.append(octal);
+            byte[] fieldBytes = field.toString().getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(fieldBytes, 0, header, offset, fieldBytes.length);
+        }
+    }
+}